@@ -0,0 +1,139 @@
+package com.polidea.blemulator;
+
+import android.util.Log;
+
+import com.polidea.multiplatformbleadapter.errors.BleError;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+public class AdapterEventLoop implements Executor {
+    private static final String TAG = AdapterEventLoop.class.getSimpleName();
+    private static final long STOP_CHECK_INTERVAL_MILLIS = 100;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean isStopped = false;
+
+    public AdapterEventLoop(String name) {
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (isStopped) {
+            Log.w(TAG, "Dropping task submitted after the event loop was stopped");
+            return;
+        }
+        tasks.offer(task);
+        LockSupport.unpark(thread);
+    }
+
+    public <T> T submitAndWait(final Call<T> call) throws BleError {
+        if (Thread.currentThread() == thread || isStopped) {
+            return call.call();
+        }
+
+        FutureTask<T> future = new FutureTask<>(new Callable<T>() {
+            @Override
+            public T call() throws BleErrorWrapper {
+                try {
+                    return call.call();
+                } catch (BleError error) {
+                    throw new BleErrorWrapper(error);
+                }
+            }
+        });
+        tasks.offer(future);
+        LockSupport.unpark(thread);
+        try {
+            return awaitResult(future);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BleErrorWrapper) {
+                throw ((BleErrorWrapper) cause).error;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public void stop() {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                isStopped = true;
+            }
+        });
+    }
+
+    private <T> T awaitResult(FutureTask<T> future) throws ExecutionException {
+        boolean isInterrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get(STOP_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (isStopped && tasks.remove(future)) {
+                        future.run();
+                    }
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+        } finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void loop() {
+        while (!isStopped) {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Adapter event loop task failed", e);
+            }
+        }
+        if (!tasks.isEmpty()) {
+            Log.w(TAG, "Event loop stopped with " + tasks.size() + " pending tasks");
+        }
+    }
+
+    public interface Call<T> {
+        T call() throws BleError;
+    }
+
+    private static class BleErrorWrapper extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final BleError error;
+
+        BleErrorWrapper(BleError error) {
+            this.error = error;
+        }
+    }
+}
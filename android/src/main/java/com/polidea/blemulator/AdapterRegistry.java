@@ -0,0 +1,9 @@
+package com.polidea.blemulator;
+
+import androidx.annotation.NonNull;
+
+public interface AdapterRegistry {
+    void registerAdapter(@NonNull SimulatedAdapter adapter);
+
+    void deregisterAdapter(@NonNull SimulatedAdapter adapter);
+}
@@ -3,14 +3,21 @@ package com.polidea.blemulator;
 import android.content.Context;
 import android.util.Log;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.polidea.blemulator.containers.ValueCacheSettings;
 import com.polidea.blemulator.parser.ErrorParser;
 import com.polidea.blemulator.parser.GattParser;
+import com.polidea.blemulator.parser.ReadableMapToMapParser;
 import com.polidea.blemulator.parser.ScanResultParser;
+import com.polidea.blemulator.parser.UuidParser;
+import com.polidea.blemulator.parser.ValueParser;
 import com.polidea.multiplatformbleadapter.BleAdapter;
 import com.polidea.multiplatformbleadapter.BleAdapterCreator;
 import com.polidea.multiplatformbleadapter.BleAdapterFactory;
@@ -19,18 +26,26 @@ import com.polidea.multiplatformbleadapter.ConnectionState;
 import com.polidea.multiplatformbleadapter.ScanResult;
 import com.polidea.multiplatformbleadapter.errors.BleError;
 
+import java.util.Map;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-public class BlemulatorModule extends ReactContextBaseJavaModule {
+public class BlemulatorModule extends ReactContextBaseJavaModule implements AdapterRegistry {
 
     private static final String TAG = BlemulatorModule.class.getName();
 
     private PlatformToJsBridge jsBridge;
     private JsCallHandler callHandler;
-    private SimulatedAdapter adapter = null;
+    private volatile SimulatedAdapter adapter = null;
     private GattParser gattParser = new GattParser();
     private ErrorParser errorParser = new ErrorParser();
+    private ValueCacheSettings valueCacheSettings = new ValueCacheSettings();
+    private WritePipelineSettings writePipelineSettings = new WritePipelineSettings();
+    private ScanSettings scanSettings = new ScanSettings();
+    private DispatchSettings dispatchSettings = new DispatchSettings();
+    //notifications, connection state changes and return calls of one device are delivered in order
+    private OrderedDecoder deviceEventDecoder = new OrderedDecoder(dispatchSettings);
 
     public BlemulatorModule(ReactApplicationContext reactContext) {
         super(reactContext);
@@ -39,7 +54,17 @@ public class BlemulatorModule extends ReactContextBaseJavaModule {
 
     private void init() {
         callHandler = new JsCallHandler();
-        jsBridge = new PlatformToJsBridge(getReactApplicationContext(), callHandler);
+        jsBridge = new PlatformToJsBridge(getReactApplicationContext(), callHandler, new DeviceKeyResolver() {
+            @Override
+            public String deviceKeyForGattId(int gattId) {
+                SimulatedAdapter adapter = BlemulatorModule.this.adapter;
+                return adapter != null ? adapter.deviceKeyForGattId(gattId) : null;
+            }
+        });
+    }
+
+    public DispatchSettings getDispatchSettings() {
+        return dispatchSettings;
     }
 
     @Override
@@ -47,23 +72,159 @@ public class BlemulatorModule extends ReactContextBaseJavaModule {
         return "Blemulator";
     }
 
-    public void registerAdapter(@NonNull SimulatedAdapter adapter) {
+    @Override
+    public synchronized void registerAdapter(@NonNull SimulatedAdapter adapter) {
         if (this.adapter != null) {
             throw new IllegalStateException("Attempting to overwrite adapter");
         }
         this.adapter = adapter;
     }
 
-    public void deregisterAdapter() {
-        if (this.adapter != null) {
-            this.adapter.destroyClient();
+    @Override
+    public synchronized void deregisterAdapter(@NonNull SimulatedAdapter adapter) {
+        //a replaced adapter finishing its teardown late must not clear its successor
+        if (this.adapter == adapter) {
+            this.adapter = null;
+        }
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        jsBridge.destroy();
+    }
+
+    @ReactMethod
+    public void handleReturnCall(final int callId, @Nullable final ReadableMap args) {
+        String deviceKey = callHandler.getOrderingKey(callId);
+        if (deviceKey == null) {
+            callHandler.handleReturnCall(callId, args);
+            return;
+        }
+        deviceEventDecoder.decode(deviceKey, new OrderedDecoder.Decoder() {
+            @Override
+            public Runnable decode() {
+                return new Runnable() {
+                    @Override
+                    public void run() {
+                        callHandler.handleReturnCall(callId, args);
+                    }
+                };
+            }
+        });
+    }
+
+    @ReactMethod
+    public void handleReturnCalls(ReadableArray returnCalls) {
+        for (int i = 0; i < returnCalls.size(); i++) {
+            ReadableMap returnCall = returnCalls.getMap(i);
+            ReadableMap args = returnCall.hasKey(NativeArgumentName.ARGS)
+                    ? returnCall.getMap(NativeArgumentName.ARGS)
+                    : null;
+            handleReturnCall(returnCall.getInt(NativeArgumentName.CALLBACK_ID), args);
+        }
+    }
+
+    //runs on the JS thread, concurrently with the async methods on the native modules queue thread.
+    //That is safe because every dispatched method only reads the volatile adapter, parses its own
+    //arguments and hands over to thread safe parts: the adapter event loop, the concurrent
+    //JsCallHandler and the per device ordered decoder
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean dispatchSynchronously(String methodName, ReadableArray args) {
+        dispatch(methodName, args);
+        return true;
+    }
+
+    //resolves once every async call sent before it has run, async methods run in order on one thread
+    @ReactMethod
+    public void awaitQueuedCalls(Promise promise) {
+        promise.resolve(null);
+    }
+
+    private void dispatch(String methodName, ReadableArray args) {
+        switch (methodName) {
+            case DispatchedMethodName.HANDLE_RETURN_CALL:
+                handleReturnCall(args.getInt(0), getMapOrNull(args, 1));
+                break;
+            case DispatchedMethodName.HANDLE_RETURN_CALLS:
+                handleReturnCalls(args.getArray(0));
+                break;
+            case DispatchedMethodName.ADD_SCAN_RESULT:
+                addScanResult(getMapOrNull(args, 0), getMapOrNull(args, 1));
+                break;
+            case DispatchedMethodName.ADD_SCAN_RESULTS:
+                addScanResults(args.getArray(0));
+                break;
+            case DispatchedMethodName.PUBLISH_ADAPTER_STATE:
+                publishAdapterState(args.getString(0));
+                break;
+            case DispatchedMethodName.PUBLISH_CONNECTION_STATE:
+                publishConnectionState(args.getString(0), args.getString(1));
+                break;
+            case DispatchedMethodName.PUBLISH_SERVICE_CHANGED:
+                publishServiceChanged(args.getString(0), args.getInt(1), args.getInt(2));
+                break;
+            case DispatchedMethodName.PUBLISH_CHARACTERISTIC_NOTIFICATION:
+                publishCharacteristicNotification(args.getString(0), getMapOrNull(args, 1), getMapOrNull(args, 2));
+                break;
+            case DispatchedMethodName.PUBLISH_CHARACTERISTIC_NOTIFICATIONS:
+                publishCharacteristicNotifications(args.getArray(0));
+                break;
+            default:
+                Log.e(TAG, "Method " + methodName + " can't be dispatched synchronously, dropping the call");
+        }
+    }
+
+    private static ReadableMap getMapOrNull(ReadableArray args, int index) {
+        return index < args.size() && !args.isNull(index) ? args.getMap(index) : null;
+    }
+
+    @ReactMethod
+    public void setMethodCallBatching(boolean enabled, int maxBatchSize, int maxDelayMillis) {
+        if (enabled) {
+            jsBridge.enableBatching(maxBatchSize, maxDelayMillis);
+        } else {
+            jsBridge.disableBatching();
+        }
+    }
+
+    @ReactMethod
+    public void setCallTimeout(int timeoutMillis) {
+        jsBridge.setCallTimeout(timeoutMillis);
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getLatencyStatistics() {
+        return callHandler.getLatencyRecorder().getSnapshots();
+    }
+
+    @ReactMethod
+    public void getLatencyStatistics(Promise promise) {
+        WritableMap result = Arguments.createMap();
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : getLatencyStatistics().entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue();
+            WritableMap statistics = Arguments.createMap();
+            statistics.putDouble("count", snapshot.getCount());
+            statistics.putDouble("p50Micros", snapshot.getP50Micros());
+            statistics.putDouble("p90Micros", snapshot.getP90Micros());
+            statistics.putDouble("p99Micros", snapshot.getP99Micros());
+            statistics.putDouble("maxMicros", snapshot.getMaxMicros());
+            result.putMap(entry.getKey(), statistics);
         }
-        this.adapter = null;
+        promise.resolve(result);
+    }
+
+    @ReactMethod
+    public void resetLatencyStatistics() {
+        callHandler.getLatencyRecorder().reset();
     }
 
     @ReactMethod
-    public void handleReturnCall(String callId, @Nullable ReadableMap args) {
-        callHandler.handleReturnCall(callId, args);
+    public void setCharacteristicValueCacheTtl(String characteristicUuid, int ttlMillis) {
+        valueCacheSettings.setTtl(UuidParser.parse(characteristicUuid), ttlMillis);
+    }
+
+    @ReactMethod
+    public void setWritePipelineOptions(int writeWithoutResponseCredits, int writeWithResponseWindow) {
+        writePipelineSettings.configure(writeWithoutResponseCredits, writeWithResponseWindow);
     }
 
     @ReactMethod
@@ -73,13 +234,56 @@ public class BlemulatorModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void addScanResult(ReadableMap scanResult, ReadableMap serializedError) {
-        ScanResult result = ScanResultParser.parse(scanResult);
+        SimulatedAdapter adapter = this.adapter;
+        if (scanResult != null && !adapter.matchesScanFilter(scanResult)) {
+            return;
+        }
+        ScanResult result = ScanResultParser.parse(scanResult, scanSettings.isEagerDecodingEnabled());
         BleError error = serializedError != null ? errorParser.parseError(serializedError) : null;
         adapter.addScanResult(result, error);
     }
 
     @ReactMethod
-    public void publishConnectionState(String peripheralId, String connectionState) {
+    public void addScanResults(ReadableArray scanResults) {
+        SimulatedAdapter adapter = this.adapter;
+        boolean isEagerDecodingEnabled = scanSettings.isEagerDecodingEnabled();
+        for (int i = 0; i < scanResults.size(); i++) {
+            ReadableMap scanResult = scanResults.getMap(i);
+            if (adapter.matchesScanFilter(scanResult)) {
+                adapter.addScanResult(ScanResultParser.parse(scanResult, isEagerDecodingEnabled), null);
+            }
+        }
+    }
+
+    @ReactMethod
+    public void setScanReportDelay(int reportDelayMillis) {
+        scanSettings.setReportDelay(reportDelayMillis);
+    }
+
+    @ReactMethod
+    public void setScanThrottling(int minIntervalMillis, double rssiSmoothingFactor, int maxTrackedDevices) {
+        scanSettings.setThrottling(minIntervalMillis, rssiSmoothingFactor, maxTrackedDevices);
+    }
+
+    @ReactMethod
+    public void setEagerAdvertisementDecoding(boolean enabled) {
+        scanSettings.setEagerDecodingEnabled(enabled);
+    }
+
+    @ReactMethod
+    public void setScanFilters(@Nullable ReadableArray manufacturerIds, @Nullable ReadableMap serviceDataPrefixes) {
+        int[] manufacturerIdFilter = null;
+        if (manufacturerIds != null) {
+            manufacturerIdFilter = new int[manufacturerIds.size()];
+            for (int i = 0; i < manufacturerIds.size(); i++) {
+                manufacturerIdFilter[i] = manufacturerIds.getInt(i);
+            }
+        }
+        scanSettings.setFilters(manufacturerIdFilter, ReadableMapToMapParser.parse(serviceDataPrefixes));
+    }
+
+    @ReactMethod
+    public void publishConnectionState(final String peripheralId, String connectionState) {
         ConnectionState state = null;
         for (ConnectionState checkedState : ConnectionState.values()) {
             if (checkedState.value.equalsIgnoreCase(connectionState)) {
@@ -90,23 +294,91 @@ public class BlemulatorModule extends ReactContextBaseJavaModule {
         if (state == null) {
             throw new IllegalArgumentException(connectionState + " doesn't match any of the known values");
         }
-        adapter.publishConnectionState(peripheralId, state);
+        final SimulatedAdapter adapter = this.adapter;
+        final ConnectionState parsedState = state;
+        deviceEventDecoder.decode(peripheralId, new OrderedDecoder.Decoder() {
+            @Override
+            public Runnable decode() {
+                return new Runnable() {
+                    @Override
+                    public void run() {
+                        adapter.publishConnectionState(peripheralId, parsedState);
+                    }
+                };
+            }
+        });
     }
 
     @ReactMethod
-    public void publishCharacteristicNotification(String transactionId,
-                                                  ReadableMap serializedCharacteristic,
-                                                  ReadableMap serializedError) {
-        Characteristic characteristic =
-                serializedCharacteristic != null
-                        ? gattParser.parseCharacteristic(serializedCharacteristic, null).getCharacteristic()
-                        : null;
-        BleError error = serializedError != null ? errorParser.parseError(serializedError) : null;
-        adapter.publishNotification(
-                transactionId,
-                characteristic,
-                error
-        );
+    public void publishServiceChanged(String peripheralId, int startHandle, int endHandle) {
+        adapter.publishServiceChanged(peripheralId, startHandle, endHandle);
+    }
+
+    @ReactMethod
+    public void publishCharacteristicNotification(final String transactionId,
+                                                  final ReadableMap serializedCharacteristic,
+                                                  final ReadableMap serializedError) {
+        final SimulatedAdapter adapter = this.adapter;
+        deviceEventDecoder.decode(getDeviceKey(adapter, transactionId), new OrderedDecoder.Decoder() {
+            @Override
+            public Runnable decode() {
+                final Characteristic characteristic =
+                        serializedCharacteristic != null
+                                ? gattParser.parseCharacteristic(serializedCharacteristic)
+                                : null;
+                final BleError error = serializedError != null ? errorParser.parseError(serializedError) : null;
+                return new Runnable() {
+                    @Override
+                    public void run() {
+                        adapter.publishNotification(
+                                transactionId,
+                                characteristic,
+                                error
+                        );
+                    }
+                };
+            }
+        });
+    }
+
+    @ReactMethod
+    public void publishCharacteristicNotifications(ReadableArray notifications) {
+        for (int i = 0; i < notifications.size(); i++) {
+            decodeAndPublishNotification(notifications.getMap(i));
+        }
+    }
+
+    private void decodeAndPublishNotification(final ReadableMap notification) {
+        final SimulatedAdapter adapter = this.adapter;
+        final String transactionId = notification.getString(NativeArgumentName.TRANSACTION_ID);
+        deviceEventDecoder.decode(getDeviceKey(adapter, transactionId), new OrderedDecoder.Decoder() {
+            @Override
+            public Runnable decode() {
+                if (notification.hasKey(NativeArgumentName.ERROR) && !notification.isNull(NativeArgumentName.ERROR)) {
+                    final BleError error = errorParser.parseError(notification.getMap(NativeArgumentName.ERROR));
+                    return new Runnable() {
+                        @Override
+                        public void run() {
+                            adapter.publishNotification(transactionId, null, error);
+                        }
+                    };
+                }
+                final int characteristicId = notification.getInt(NativeArgumentName.CHARACTERISTIC_ID);
+                final byte[] value = ValueParser.parse(notification, NativeArgumentName.VALUE);
+                return new Runnable() {
+                    @Override
+                    public void run() {
+                        adapter.publishNotification(transactionId, characteristicId, value);
+                    }
+                };
+            }
+        });
+    }
+
+    //unmonitored transactions are dropped by the adapter anyway, their own key is enough for them
+    private static String getDeviceKey(SimulatedAdapter adapter, String transactionId) {
+        String deviceKey = adapter.deviceKeyForTransaction(transactionId);
+        return deviceKey != null ? deviceKey : transactionId;
     }
 
     @ReactMethod
@@ -115,8 +387,18 @@ public class BlemulatorModule extends ReactContextBaseJavaModule {
         BleAdapterFactory.setBleAdapterCreator(new BleAdapterCreator() {
             @Override
             public BleAdapter createAdapter(Context context) {
-                SimulatedAdapter adapter = new SimulatedAdapter(BlemulatorModule.this, jsBridge);
-                deregisterAdapter();
+                SimulatedAdapter adapter = new SimulatedAdapter(
+                        BlemulatorModule.this,
+                        jsBridge,
+                        valueCacheSettings,
+                        writePipelineSettings,
+                        scanSettings,
+                        dispatchSettings);
+                SimulatedAdapter previousAdapter = BlemulatorModule.this.adapter;
+                if (previousAdapter != null) {
+                    deregisterAdapter(previousAdapter);
+                    previousAdapter.destroyClient();
+                }
                 return adapter;
             }
         });
@@ -0,0 +1,130 @@
+package com.polidea.blemulator;
+
+import com.polidea.multiplatformbleadapter.OnErrorCallback;
+import com.polidea.multiplatformbleadapter.OnEventCallback;
+import com.polidea.multiplatformbleadapter.OnSuccessCallback;
+import com.polidea.multiplatformbleadapter.errors.BleError;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.Nullable;
+
+public class CallbackDispatcher {
+    public static final String ADAPTER_KEY = "adapter";
+    public static final String SCAN_KEY = "scan";
+    public static final String UNKNOWN_DEVICE_KEY = "unknownDevice";
+
+    private final DispatchSettings dispatchSettings;
+    private final ConcurrentMap<String, SerialExecutor> serialExecutors = new ConcurrentHashMap<>();
+
+    public CallbackDispatcher(DispatchSettings dispatchSettings) {
+        this.dispatchSettings = dispatchSettings;
+    }
+
+    //the executor is looked up for every callback, so callbacks wrapped before a release
+    //and the ones wrapped after it still share one executor per key
+    public void dispatch(@Nullable String key, Runnable task) {
+        if (key == null) {
+            key = UNKNOWN_DEVICE_KEY;
+        }
+        while (true) {
+            SerialExecutor executor = getExecutor(key);
+            if (executor.tryExecute(task)) {
+                return;
+            }
+            serialExecutors.remove(key, executor);
+        }
+    }
+
+    private SerialExecutor getExecutor(String key) {
+        SerialExecutor executor = serialExecutors.get(key);
+        if (executor == null) {
+            SerialExecutor newExecutor = new SerialExecutor(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    dispatchSettings.getCallbackExecutor().execute(command);
+                }
+            });
+            executor = serialExecutors.putIfAbsent(key, newExecutor);
+            if (executor == null) {
+                executor = newExecutor;
+            }
+        }
+        return executor;
+    }
+
+    public void release(final String key) {
+        final SerialExecutor executor = serialExecutors.get(key);
+        if (executor == null) {
+            return;
+        }
+        //queued behind the pending callbacks and requeued until none are left, so a new executor
+        //for the key only starts once this one has nothing more to run
+        executor.tryExecute(new Runnable() {
+            @Override
+            public void run() {
+                if (executor.retireIfIdle()) {
+                    serialExecutors.remove(key, executor);
+                } else {
+                    executor.tryExecute(this);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    public <T> OnSuccessCallback<T> dispatchingSuccess(@Nullable final String key, @Nullable final OnSuccessCallback<T> onSuccessCallback) {
+        if (onSuccessCallback == null) {
+            return null;
+        }
+        return new OnSuccessCallback<T>() {
+            @Override
+            public void onSuccess(final T data) {
+                dispatch(key, new Runnable() {
+                    @Override
+                    public void run() {
+                        onSuccessCallback.onSuccess(data);
+                    }
+                });
+            }
+        };
+    }
+
+    @Nullable
+    public <T> OnEventCallback<T> dispatchingEvent(@Nullable final String key, @Nullable final OnEventCallback<T> onEventCallback) {
+        if (onEventCallback == null) {
+            return null;
+        }
+        return new OnEventCallback<T>() {
+            @Override
+            public void onEvent(final T data) {
+                dispatch(key, new Runnable() {
+                    @Override
+                    public void run() {
+                        onEventCallback.onEvent(data);
+                    }
+                });
+            }
+        };
+    }
+
+    @Nullable
+    public OnErrorCallback dispatchingError(@Nullable final String key, @Nullable final OnErrorCallback onErrorCallback) {
+        if (onErrorCallback == null) {
+            return null;
+        }
+        return new OnErrorCallback() {
+            @Override
+            public void onError(final BleError error) {
+                dispatch(key, new Runnable() {
+                    @Override
+                    public void run() {
+                        onErrorCallback.onError(error);
+                    }
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.polidea.blemulator;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DaemonThreadFactory implements ThreadFactory {
+    private final String namePrefix;
+    private final AtomicInteger nextThreadNumber = new AtomicInteger();
+
+    DaemonThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, namePrefix + "-" + nextThreadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,8 @@
+package com.polidea.blemulator;
+
+import androidx.annotation.Nullable;
+
+public interface DeviceKeyResolver {
+    @Nullable
+    String deviceKeyForGattId(int gattId);
+}
@@ -0,0 +1,38 @@
+package com.polidea.blemulator;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import androidx.annotation.Nullable;
+
+public class DispatchSettings {
+    private volatile Executor decodeExecutor = null;
+    private volatile Executor callbackExecutor = null;
+
+    public void setDecodeExecutor(@Nullable Executor decodeExecutor) {
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    public void setCallbackExecutor(@Nullable Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public Executor getDecodeExecutor() {
+        Executor executor = decodeExecutor;
+        return executor != null ? executor : DefaultExecutors.DECODE_EXECUTOR;
+    }
+
+    public Executor getCallbackExecutor() {
+        Executor executor = callbackExecutor;
+        return executor != null ? executor : DefaultExecutors.CALLBACK_EXECUTOR;
+    }
+
+    private static class DefaultExecutors {
+        private static final ExecutorService DECODE_EXECUTOR = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new DaemonThreadFactory("BlemulatorDecode"));
+        private static final ExecutorService CALLBACK_EXECUTOR = Executors.newCachedThreadPool(
+                new DaemonThreadFactory("BlemulatorCallback"));
+    }
+}
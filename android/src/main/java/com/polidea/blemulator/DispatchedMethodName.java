@@ -0,0 +1,15 @@
+package com.polidea.blemulator;
+
+public interface DispatchedMethodName {
+    String HANDLE_RETURN_CALL = "handleReturnCall";
+    String HANDLE_RETURN_CALLS = "handleReturnCalls";
+
+    String ADD_SCAN_RESULT = "addScanResult";
+    String ADD_SCAN_RESULTS = "addScanResults";
+
+    String PUBLISH_ADAPTER_STATE = "publishAdapterState";
+    String PUBLISH_CONNECTION_STATE = "publishConnectionState";
+    String PUBLISH_SERVICE_CHANGED = "publishServiceChanged";
+    String PUBLISH_CHARACTERISTIC_NOTIFICATION = "publishCharacteristicNotification";
+    String PUBLISH_CHARACTERISTIC_NOTIFICATIONS = "publishCharacteristicNotifications";
+}
@@ -2,6 +2,7 @@ package com.polidea.blemulator;
 
 public interface JsArgumentName {
     String TRANSACTION_ID = "transactionId";
+    String CACHED_DATABASE_HASH = "cachedDatabaseHash";
 
     String FILTERED_UUIDS = "filteredUuids";
     String SCAN_MODE = "scanMode";
@@ -27,4 +28,7 @@ public interface JsArgumentName {
 
     String VALUE = "value";
     String WITH_RESPONSE = "withResponse";
+
+    String START_HANDLE = "startHandle";
+    String END_HANDLE = "endHandle";
 }
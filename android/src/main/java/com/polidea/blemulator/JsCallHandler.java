@@ -1,35 +1,166 @@
 package com.polidea.blemulator;
 
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.polidea.multiplatformbleadapter.errors.BleErrorCode;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import java.util.HashMap;
-import java.util.Map;
+import androidx.annotation.Nullable;
 
 public class JsCallHandler {
-    private int nextCallId = 0;
-    private Map<String, Callback> callbacks = new HashMap<>();
+    private static final String TAG = JsCallHandler.class.getSimpleName();
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long TIMEOUT_TICK_MILLIS = 100;
+    private static final int TIMEOUT_WHEEL_BUCKETS = 512;
+    private static final int MAX_SLOT_PROBES = 8;
+    public static final long NO_TIMEOUT = 0;
+    public static final int NO_CALLBACK_ID = -1;
+
+    private final AtomicInteger nextCallId = new AtomicInteger();
+    private final AtomicReferenceArray<PendingCall> pendingCalls;
+    private final ConcurrentMap<Integer, PendingCall> overflowCalls = new ConcurrentHashMap<>();
+    private final int slotMask;
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+    private final TimingWheel<PendingCall> timeoutWheel = new TimingWheel<>(
+            TIMEOUT_TICK_MILLIS,
+            TIMEOUT_WHEEL_BUCKETS,
+            new TimingWheel.ExpirationListener<PendingCall>() {
+                @Override
+                public void onExpired(PendingCall pendingCall) {
+                    handleTimeout(pendingCall);
+                }
+            });
+
+    public JsCallHandler() {
+        this(DEFAULT_CAPACITY);
+    }
 
-    public String getNextCallbackId() {
-        return Integer.toString(nextCallId++);
+    public JsCallHandler(int capacity) {
+        int slotCount = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        pendingCalls = new AtomicReferenceArray<>(slotCount);
+        slotMask = slotCount - 1;
     }
 
-    public String addCallback(Callback callback) {
-        String callId = getNextCallbackId();
-        callbacks.put(callId, callback);
+    public int addCallback(String methodName, @Nullable String orderingKey, Callback callback, long timeoutMillis) {
+        PendingCall pendingCall = new PendingCall(methodName, orderingKey, latencyRecorder.getHistogram(methodName), callback);
+        int callId = nextCallId.getAndIncrement() & Integer.MAX_VALUE;
+        pendingCall.id = callId;
+        int attempt = 1;
+        while (!pendingCalls.compareAndSet(callId & slotMask, null, pendingCall)) {
+            callId = nextCallId.getAndIncrement() & Integer.MAX_VALUE;
+            pendingCall.id = callId;
+            if (++attempt > MAX_SLOT_PROBES) {
+                overflowCalls.put(callId, pendingCall);
+                break;
+            }
+        }
+        if (timeoutMillis > NO_TIMEOUT) {
+            timeoutWheel.schedule(pendingCall, timeoutMillis);
+        }
         return callId;
     }
 
-    public void handleReturnCall(String id, ReadableMap args) {
-        if (!callbacks.containsKey(id)) {
-            throw new IllegalStateException("Unknown callback ID " + id);
+    public void handleReturnCall(int id, ReadableMap args) {
+        PendingCall pendingCall = remove(id);
+        if (pendingCall == null) {
+            Log.w(TAG, "Ignoring return call for unknown, expired or purged callback ID " + id);
+            return;
         }
 
-        Callback callback = callbacks.get(id);
-        if (callback == null) {
-            throw new IllegalStateException("Callback not set for provided id " + id);
+        timeoutWheel.cancel(pendingCall);
+        pendingCall.latencyHistogram.record(System.nanoTime() - pendingCall.startNanos);
+        pendingCall.callback.invoke(args);
+    }
+
+    //the key of the device the call belongs to, null for unknown or device independent calls
+    @Nullable
+    public String getOrderingKey(int id) {
+        PendingCall pendingCall = pendingCalls.get(id & slotMask);
+        if (pendingCall == null || pendingCall.id != id) {
+            pendingCall = overflowCalls.isEmpty() ? null : overflowCalls.get(id);
+        }
+        return pendingCall != null ? pendingCall.orderingKey : null;
+    }
+
+    public LatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
+
+    public void purgePendingCalls() {
+        timeoutWheel.clear();
+        for (int slot = 0; slot < pendingCalls.length(); slot++) {
+            pendingCalls.set(slot, null);
+        }
+        overflowCalls.clear();
+    }
+
+    public void destroy() {
+        timeoutWheel.stop();
+        purgePendingCalls();
+    }
+
+    private PendingCall remove(int id) {
+        int slot = id & slotMask;
+        PendingCall pendingCall = pendingCalls.get(slot);
+        if (pendingCall != null && pendingCall.id == id) {
+            return pendingCalls.compareAndSet(slot, pendingCall, null) ? pendingCall : null;
+        }
+        return overflowCalls.isEmpty() ? null : overflowCalls.remove(id);
+    }
+
+    private boolean remove(PendingCall pendingCall) {
+        return pendingCalls.compareAndSet(pendingCall.id & slotMask, pendingCall, null)
+                || (!overflowCalls.isEmpty() && overflowCalls.remove(pendingCall.id, pendingCall));
+    }
+
+    private void handleTimeout(PendingCall pendingCall) {
+        if (!remove(pendingCall)) {
+            return;
+        }
+
+        Log.w(TAG, pendingCall.methodName + " call with ID " + pendingCall.id + " timed out");
+        try {
+            pendingCall.callback.invoke(createTimeoutArgs(pendingCall.methodName));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error while handling timeout of " + pendingCall.methodName, e);
+        }
+    }
+
+    private static ReadableMap createTimeoutArgs(String methodName) {
+        WritableMap error = Arguments.createMap();
+        error.putInt(NativeArgumentName.ERROR_CODE, BleErrorCode.OperationTimedOut.code);
+        error.putString(NativeArgumentName.ERROR_MESSAGE, "Simulated " + methodName + " operation timed out");
+        error.putNull(NativeArgumentName.ERROR_DEVICE_ID);
+        error.putNull(NativeArgumentName.ERROR_SERVICE_UUID);
+        error.putNull(NativeArgumentName.ERROR_CHARACTERISTIC_UUID);
+        error.putNull(NativeArgumentName.ERROR_DESCRIPTOR_UUID);
+
+        WritableMap args = Arguments.createMap();
+        args.putMap(NativeArgumentName.ERROR, error);
+        return args;
+    }
+
+    private static class PendingCall extends TimingWheel.Timeout {
+        private final String methodName;
+        private final String orderingKey;
+        private final LatencyHistogram latencyHistogram;
+        private final Callback callback;
+        private final long startNanos = System.nanoTime();
+        private int id;
+
+        PendingCall(String methodName, String orderingKey, LatencyHistogram latencyHistogram, Callback callback) {
+            this.methodName = methodName;
+            this.orderingKey = orderingKey;
+            this.latencyHistogram = latencyHistogram;
+            this.callback = callback;
         }
-        callback.invoke(args);
-        callbacks.remove(id);
     }
 
     interface Callback {
@@ -0,0 +1,36 @@
+package com.polidea.blemulator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class LatencyRecorder {
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public LatencyHistogram getHistogram(String methodName) {
+        LatencyHistogram histogram = histograms.get(methodName);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(methodName, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    public Map<String, LatencyHistogram.Snapshot> getSnapshots() {
+        Map<String, LatencyHistogram.Snapshot> result = new HashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+}
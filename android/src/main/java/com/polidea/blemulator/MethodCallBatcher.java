@@ -0,0 +1,114 @@
+package com.polidea.blemulator;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class MethodCallBatcher {
+    public static final String METHOD_CALL_BATCH_EVENT = "MethodCallBatch";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 2;
+
+    private final ReactContext reactContext;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory("BlemulatorMethodCallBatch"));
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private volatile boolean isEnabled = false;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+    private WritableArray pendingCalls = null;
+    private int pendingCallsCount = 0;
+    private ScheduledFuture<?> scheduledFlush = null;
+
+    public MethodCallBatcher(ReactContext reactContext) {
+        this.reactContext = reactContext;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public synchronized void enable(int maxBatchSize, long maxDelayMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize has to be positive, was " + maxBatchSize);
+        }
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("maxDelayMillis can't be negative, was " + maxDelayMillis);
+        }
+        flush();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        isEnabled = true;
+    }
+
+    public synchronized void disable() {
+        //flushing before clearing the flag keeps directly emitted calls behind the batched ones
+        flush();
+        isEnabled = false;
+    }
+
+    public synchronized void add(ReadableMap methodCall) {
+        if (!isEnabled) {
+            //batching was disabled after the caller checked isEnabled, the batch is already flushed
+            WritableArray calls = Arguments.createArray();
+            calls.pushMap(methodCall);
+            emit(calls);
+            return;
+        }
+        if (pendingCalls == null) {
+            pendingCalls = Arguments.createArray();
+            scheduledFlush = scheduler.schedule(flushTask, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        pendingCalls.pushMap(methodCall);
+        pendingCallsCount++;
+
+        if (pendingCallsCount >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pendingCalls == null) {
+            return;
+        }
+
+        WritableArray calls = pendingCalls;
+        pendingCalls = null;
+        pendingCallsCount = 0;
+        emit(calls);
+    }
+
+    public synchronized void shutdown() {
+        isEnabled = false;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pendingCalls = null;
+        pendingCallsCount = 0;
+        scheduler.shutdown();
+    }
+
+    private void emit(WritableArray calls) {
+        reactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(METHOD_CALL_BATCH_EVENT, calls);
+    }
+}
@@ -22,6 +22,7 @@ public interface MethodName {
     String GET_CONNECTED_DEVICED = "getConnectedDevices";
 
     String DISCOVERY = "discovery";
+    String DISCOVER_GATTS_IN_RANGE = "discoverGattsInRange";
 
     String READ_CHARACTERISTIC = "readCharacteristic";
     String READ_CHARACTERISTIC_FOR_SERVICE = "readCharacteristicForService";
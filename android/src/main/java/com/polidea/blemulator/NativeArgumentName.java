@@ -6,6 +6,13 @@ public interface NativeArgumentName {
     String ID = "id";
     String VALUE = "value";
 
+    //ReturnCall
+    String CALLBACK_ID = "callbackId";
+    String ARGS = "args";
+
+    //Notification
+    String TRANSACTION_ID = "transactionId";
+
     //ERROR
     String ERROR_CODE = "errorCode";
     String ERROR_MESSAGE = "message";
@@ -40,6 +47,7 @@ public interface NativeArgumentName {
     String DESCRIPTORS = "descriptors";
     String CHARACTERISTIC_ID = "characteristicId";
     String CHARACTERISTIC_UUID = "characteristicUuid";
+    String DATABASE_HASH = "databaseHash";
     
     //RequestMtu
     String MTU = "mtu";
@@ -0,0 +1,93 @@
+package com.polidea.blemulator;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class OrderedDecoder {
+    private static final String TAG = OrderedDecoder.class.getSimpleName();
+    private static final Runnable NO_DELIVERY = new Runnable() {
+        @Override
+        public void run() {
+            //decoding failed, nothing to deliver
+        }
+    };
+
+    private final DispatchSettings dispatchSettings;
+    private final ConcurrentMap<String, SlotQueue> pendingSlots = new ConcurrentHashMap<>();
+
+    public OrderedDecoder(DispatchSettings dispatchSettings) {
+        this.dispatchSettings = dispatchSettings;
+    }
+
+    public void decode(final String key, final Decoder decoder) {
+        final Slot slot = new Slot();
+        final SlotQueue slots = enqueue(key, slot);
+        dispatchSettings.getDecodeExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                Runnable delivery;
+                try {
+                    delivery = decoder.decode();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Decoding of payload for " + key + " failed", e);
+                    delivery = NO_DELIVERY;
+                }
+                complete(key, slots, slot, delivery);
+            }
+        });
+    }
+
+    private SlotQueue enqueue(String key, Slot slot) {
+        while (true) {
+            SlotQueue slots = pendingSlots.get(key);
+            if (slots == null) {
+                SlotQueue newSlots = new SlotQueue();
+                slots = pendingSlots.putIfAbsent(key, newSlots);
+                if (slots == null) {
+                    slots = newSlots;
+                }
+            }
+            synchronized (slots) {
+                //a drained queue is removed from the map under its own lock, retry with a fresh one
+                if (!slots.isRetired) {
+                    slots.slots.add(slot);
+                    return slots;
+                }
+            }
+        }
+    }
+
+    private void complete(String key, SlotQueue slots, Slot slot, Runnable delivery) {
+        synchronized (slots) {
+            slot.delivery = delivery;
+            while (!slots.slots.isEmpty() && slots.slots.peek().delivery != null) {
+                try {
+                    slots.slots.poll().delivery.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Delivery of decoded payload for " + key + " failed", e);
+                }
+            }
+            if (slots.slots.isEmpty()) {
+                slots.isRetired = true;
+                pendingSlots.remove(key, slots);
+            }
+        }
+    }
+
+    private static class Slot {
+        private Runnable delivery = null;
+    }
+
+    private static class SlotQueue {
+        private final Queue<Slot> slots = new ArrayDeque<>();
+        private boolean isRetired = false;
+    }
+
+    public interface Decoder {
+        Runnable decode();
+    }
+}
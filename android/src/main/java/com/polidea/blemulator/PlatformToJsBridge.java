@@ -8,7 +8,8 @@ import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
-import com.polidea.blemulator.containers.CachedService;
+import com.polidea.blemulator.containers.GattTable;
+import com.polidea.blemulator.containers.DiscoveredGatts;
 import com.polidea.blemulator.parser.DeviceParser;
 import com.polidea.blemulator.parser.ErrorParser;
 import com.polidea.blemulator.parser.GattParser;
@@ -22,23 +23,57 @@ import com.polidea.multiplatformbleadapter.RefreshGattMoment;
 import com.polidea.multiplatformbleadapter.errors.BleError;
 import com.polidea.multiplatformbleadapter.errors.BleErrorCode;
 
-import java.util.List;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.Nullable;
 
-public class PlatformToJsBridge {
+public class PlatformToJsBridge implements SimulationTransport {
     private static final String TAG = PlatformToJsBridge.class.getSimpleName();
+    public static final long DEFAULT_CALL_TIMEOUT_MILLIS = 30000;
     private final ReactContext reactContext;
     private final JsCallHandler callHandler;
+    private final DeviceKeyResolver deviceKeyResolver;
     private final GattParser gattParser = new GattParser();
     private final ErrorParser errorParser = new ErrorParser();
     private final DeviceParser deviceParser = new DeviceParser();
+    private final MethodCallBatcher methodCallBatcher;
+    private volatile long callTimeoutMillis = DEFAULT_CALL_TIMEOUT_MILLIS;
 
-    public PlatformToJsBridge(ReactContext reactContext, JsCallHandler callHandler) {
+    public PlatformToJsBridge(ReactContext reactContext, JsCallHandler callHandler, DeviceKeyResolver deviceKeyResolver) {
         this.reactContext = reactContext;
         this.callHandler = callHandler;
+        this.deviceKeyResolver = deviceKeyResolver;
+        this.methodCallBatcher = new MethodCallBatcher(reactContext);
     }
 
+    public void enableBatching(int maxBatchSize, long maxDelayMillis) {
+        methodCallBatcher.enable(maxBatchSize, maxDelayMillis);
+    }
+
+    public void disableBatching() {
+        methodCallBatcher.disable();
+    }
+
+    public void setCallTimeout(long timeoutMillis) {
+        callTimeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Executor getMethodCallExecutor() {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                reactContext.runOnNativeModulesQueueThread(command);
+            }
+        };
+    }
+
+    public void destroy() {
+        methodCallBatcher.shutdown();
+        callHandler.destroy();
+    }
+
+    @Override
     public void createClient() {
         callMethod(MethodName.CREATE_CLIENT, null,
                 new JsCallHandler.Callback() {
@@ -49,6 +84,7 @@ public class PlatformToJsBridge {
                 });
     }
 
+    @Override
     public void destroyClient() {
         callMethod(MethodName.DESTROY_CLIENT, null, new JsCallHandler.Callback() {
             @Override
@@ -58,6 +94,7 @@ public class PlatformToJsBridge {
         });
     }
 
+    @Override
     public void enable(String transactionId, final OnSuccessCallback<Void> successCallback, final OnErrorCallback errorCallback) {
         WritableMap args = Arguments.createMap();
         args.putString(JsArgumentName.TRANSACTION_ID, transactionId);
@@ -76,6 +113,7 @@ public class PlatformToJsBridge {
 
     }
 
+    @Override
     public void disable(String transactionId, final OnSuccessCallback<Void> successCallback, final OnErrorCallback errorCallback) {
         WritableMap args = Arguments.createMap();
         args.putString(JsArgumentName.TRANSACTION_ID, transactionId);
@@ -93,6 +131,7 @@ public class PlatformToJsBridge {
                 });
     }
 
+    @Override
     public void startScan(String[] filteredUUIDs,
                           int scanMode,
                           int callbackType,
@@ -118,10 +157,13 @@ public class PlatformToJsBridge {
                             onErrorCallback.onError(errorParser.parseError(args.getMap(NativeArgumentName.ERROR)));
                         }
                     }
-                }
+                },
+                //a timeout would surface as a scan error while the scan is still running normally
+                JsCallHandler.NO_TIMEOUT
         );
     }
 
+    @Override
     public void stopScan() {
         callMethod(MethodName.STOP_SCAN, null, new JsCallHandler.Callback() {
             @Override
@@ -132,6 +174,7 @@ public class PlatformToJsBridge {
         });
     }
 
+    @Override
     public void getKnownDevices(String[] deviceIdentifiers,
                                 final OnSuccessCallback<Device[]> onSuccessCallback,
                                 final OnErrorCallback onErrorCallback) {
@@ -158,6 +201,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void getConnectedDevices(String[] serviceUUIDs,
                                     final OnSuccessCallback<Device[]> onSuccessCallback,
                                     final OnErrorCallback onErrorCallback) {
@@ -185,6 +229,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void connect(String deviceIdentifier,
                         ConnectionOptions connectionOptions,
                         final OnSuccessCallback<Device> onSuccessCallback,
@@ -197,6 +242,9 @@ public class PlatformToJsBridge {
         if (connectionOptions.getTimeoutInMillis() != null) {
             arguments.putInt(JsArgumentName.TIMEOUT, connectionOptions.getTimeoutInMillis().intValue());
         }
+        long timeoutMillis = connectionOptions.getTimeoutInMillis() != null
+                ? connectionOptions.getTimeoutInMillis()
+                : JsCallHandler.NO_TIMEOUT;
         callMethod(MethodName.CONNECT, arguments, new JsCallHandler.Callback() {
             @Override
             public void invoke(ReadableMap args) {
@@ -207,9 +255,10 @@ public class PlatformToJsBridge {
                     onSuccessCallback.onSuccess(device);
                 }
             }
-        });
+        }, timeoutMillis);
     }
 
+    @Override
     public void cancelDeviceConnection(final String deviceIdentifier,
                                        final OnSuccessCallback<Device> onSuccessCallback,
                                        final OnErrorCallback onErrorCallback) {
@@ -230,6 +279,7 @@ public class PlatformToJsBridge {
                 });
     }
 
+    @Override
     public void isDeviceConnected(String deviceIdentifier,
                                   final OnSuccessCallback<Boolean> onSuccessCallback,
                                   final OnErrorCallback onErrorCallback) {
@@ -247,6 +297,7 @@ public class PlatformToJsBridge {
         });
     }
 
+    @Override
     public void readRSSIForDevice(String deviceIdentifier,
                                   String transactionId,
                                   final OnSuccessCallback<Device> onSuccessCallback,
@@ -271,6 +322,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void requestConnectionPriorityForDevice(String deviceIdentifier,
                                                    int connectionPriority,
                                                    String transactionId,
@@ -295,6 +347,7 @@ public class PlatformToJsBridge {
                 });
     }
 
+    @Override
     public void requestMtu(final String deviceIdentifier,
                            final int mtu,
                            String transactionId,
@@ -321,17 +374,58 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void discoverAllGatts(String deviceIdentifier,
                                  String transactionId,
-                                 final OnSuccessCallback<List<CachedService>> onSuccessCallback,
+                                 @Nullable String cachedDatabaseHash,
+                                 final OnSuccessCallback<DiscoveredGatts> onSuccessCallback,
                                  final OnErrorCallback onErrorCallback) {
         WritableMap arguments = Arguments.createMap();
         arguments.putString(JsArgumentName.IDENTIFIER, deviceIdentifier);
         arguments.putString(JsArgumentName.TRANSACTION_ID, transactionId);
+        if (cachedDatabaseHash != null) {
+            arguments.putString(JsArgumentName.CACHED_DATABASE_HASH, cachedDatabaseHash);
+        }
 
         callMethod(
                 MethodName.DISCOVERY,
                 arguments,
+                new JsCallHandler.Callback() {
+                    @Override
+                    public void invoke(ReadableMap args) {
+                        if (args.hasKey(NativeArgumentName.ERROR)) {
+                            onErrorCallback.onError(errorParser.parseError(args.getMap(NativeArgumentName.ERROR)));
+                        } else {
+                            String databaseHash = args.hasKey(NativeArgumentName.DATABASE_HASH)
+                                    ? args.getString(NativeArgumentName.DATABASE_HASH)
+                                    : null;
+                            if (!args.hasKey(NativeArgumentName.VALUE) && databaseHash != null) {
+                                onSuccessCallback.onSuccess(DiscoveredGatts.unchanged(databaseHash));
+                            } else {
+                                onSuccessCallback.onSuccess(new DiscoveredGatts(
+                                        gattParser.parseDiscoveryResponse(args.getArray(NativeArgumentName.VALUE)),
+                                        databaseHash));
+                            }
+                        }
+                    }
+                }
+        );
+    }
+
+    @Override
+    public void discoverGattsInRange(String deviceIdentifier,
+                                     int startHandle,
+                                     int endHandle,
+                                     final OnSuccessCallback<GattTable> onSuccessCallback,
+                                     final OnErrorCallback onErrorCallback) {
+        WritableMap arguments = Arguments.createMap();
+        arguments.putString(JsArgumentName.IDENTIFIER, deviceIdentifier);
+        arguments.putInt(JsArgumentName.START_HANDLE, startHandle);
+        arguments.putInt(JsArgumentName.END_HANDLE, endHandle);
+
+        callMethod(
+                MethodName.DISCOVER_GATTS_IN_RANGE,
+                arguments,
                 new JsCallHandler.Callback() {
                     @Override
                     public void invoke(ReadableMap args) {
@@ -345,6 +439,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void readCharacteristicForDevice(String deviceIdentifier,
                                             String serviceUUID,
                                             String characteristicUUID,
@@ -360,6 +455,7 @@ public class PlatformToJsBridge {
         callMethod(MethodName.READ_CHARACTERISTIC_FOR_DEVICE, arguments, createCallbackReturningCharacteristicOrError(onSuccessCallback, onErrorCallback));
     }
 
+    @Override
     public void readCharacteristicForService(int serviceIdentifier,
                                              String characteristicUUID,
                                              String transactionId,
@@ -377,6 +473,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void readCharacteristic(int characteristicIdentifier,
                                    String transactionId,
                                    final OnSuccessCallback<Characteristic> onSuccessCallback,
@@ -400,20 +497,21 @@ public class PlatformToJsBridge {
                 if (args.hasKey(NativeArgumentName.ERROR)) {
                     onErrorCallback.onError(errorParser.parseError(args.getMap(NativeArgumentName.ERROR)));
                 } else {
-                    onSuccessCallback.onSuccess(gattParser.parseCharacteristic(args.getMap(NativeArgumentName.VALUE), null).getCharacteristic());
+                    onSuccessCallback.onSuccess(gattParser.parseCharacteristic(args.getMap(NativeArgumentName.VALUE)));
                 }
             }
         };
     }
 
+    @Override
     public void writeCharacteristicForDevice(String deviceIdentifier,
                                              String serviceUUID,
                                              String characteristicUUID,
                                              String valueBase64,
                                              boolean withResponse,
                                              String transactionId,
-                                             OnSuccessCallback<Characteristic> onSuccessCallback,
-                                             OnErrorCallback onErrorCallback) {
+                                             @Nullable OnSuccessCallback<Characteristic> onSuccessCallback,
+                                             @Nullable OnErrorCallback onErrorCallback) {
         WritableMap arguments = Arguments.createMap();
         arguments.putString(JsArgumentName.IDENTIFIER, deviceIdentifier);
         arguments.putString(JsArgumentName.SERVICE_UUID, serviceUUID);
@@ -425,17 +523,18 @@ public class PlatformToJsBridge {
         callMethod(
                 MethodName.WRITE_CHARACTERISTIC_FOR_DEVICE,
                 arguments,
-                createCallbackReturningCharacteristicOrError(onSuccessCallback, onErrorCallback)
+                createWriteCallback(onSuccessCallback, onErrorCallback)
         );
     }
 
+    @Override
     public void writeCharacteristicForService(int serviceIdentifier,
                                               String characteristicUUID,
                                               String valueBase64,
                                               boolean withResponse,
                                               String transactionId,
-                                              OnSuccessCallback<Characteristic> onSuccessCallback,
-                                              OnErrorCallback onErrorCallback) {
+                                              @Nullable OnSuccessCallback<Characteristic> onSuccessCallback,
+                                              @Nullable OnErrorCallback onErrorCallback) {
         WritableMap arguments = Arguments.createMap();
         arguments.putInt(JsArgumentName.SERVICE_ID, serviceIdentifier);
         arguments.putString(JsArgumentName.CHARACTERISTIC_UUID, characteristicUUID);
@@ -446,16 +545,17 @@ public class PlatformToJsBridge {
         callMethod(
                 MethodName.WRITE_CHARACTERISTIC_FOR_SERVICE,
                 arguments,
-                createCallbackReturningCharacteristicOrError(onSuccessCallback, onErrorCallback)
+                createWriteCallback(onSuccessCallback, onErrorCallback)
         );
     }
 
+    @Override
     public void writeCharacteristic(int characteristicIdentifier,
                                     String valueBase64,
                                     boolean withResponse,
                                     String transactionId,
-                                    OnSuccessCallback<Characteristic> onSuccessCallback,
-                                    OnErrorCallback onErrorCallback) {
+                                    @Nullable OnSuccessCallback<Characteristic> onSuccessCallback,
+                                    @Nullable OnErrorCallback onErrorCallback) {
         WritableMap arguments = Arguments.createMap();
         arguments.putInt(JsArgumentName.CHARACTERISTIC_ID, characteristicIdentifier);
         arguments.putString(JsArgumentName.TRANSACTION_ID, transactionId);
@@ -465,10 +565,11 @@ public class PlatformToJsBridge {
         callMethod(
                 MethodName.WRITE_CHARACTERISTIC,
                 arguments,
-                createCallbackReturningCharacteristicOrError(onSuccessCallback, onErrorCallback)
+                createWriteCallback(onSuccessCallback, onErrorCallback)
         );
     }
 
+    @Override
     public void monitorCharacteristicForDevice(String deviceIdentifier,
                                                String serviceUUID,
                                                String characteristicUUID,
@@ -484,9 +585,10 @@ public class PlatformToJsBridge {
             public void invoke(ReadableMap args) {
                 //any errors will be handled in SimulatedAdapter.publishNotification()
             }
-        });
+        }, JsCallHandler.NO_TIMEOUT);
     }
 
+    @Override
     public void monitorCharacteristicForService(int serviceIdentifier,
                                                 String characteristicUUID,
                                                 String transactionId) {
@@ -500,9 +602,10 @@ public class PlatformToJsBridge {
             public void invoke(ReadableMap args) {
                 //any errors will be handled in SimulatedAdapter.publishNotification()
             }
-        });
+        }, JsCallHandler.NO_TIMEOUT);
     }
 
+    @Override
     public void monitorCharacteristic(int characteristicIdentifier,
                                       String transactionId) {
         WritableMap arguments = Arguments.createMap();
@@ -514,9 +617,10 @@ public class PlatformToJsBridge {
             public void invoke(ReadableMap args) {
                 //any errors will be handled in SimulatedAdapter.publishNotification()
             }
-        });
+        }, JsCallHandler.NO_TIMEOUT);
     }
 
+    @Override
     public void readDescriptorForDevice(String deviceId,
                                         String serviceUUID,
                                         String characteristicUUID,
@@ -538,6 +642,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void readDescriptorForService(int serviceIdentifier,
                                          String characteristicUUID,
                                          String descriptorUUID,
@@ -557,6 +662,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void readDescriptorForCharacteristic(int characteristicIdentifier,
                                                 String descriptorUUID,
                                                 String transactionId,
@@ -574,6 +680,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void readDescriptor(int descriptorIdentifier,
                                String transactionId,
                                OnSuccessCallback<Descriptor> successCallback,
@@ -589,6 +696,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void writeDescriptorForDevice(String deviceId,
                                          String serviceUUID,
                                          String characteristicUUID,
@@ -611,6 +719,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void writeDescriptorForService(int serviceIdentifier,
                                           String characteristicUUID,
                                           String descriptorUUID,
@@ -631,6 +740,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void writeDescriptorForCharacteristic(int characteristicIdentifier,
                                                  String descriptorUUID,
                                                  String valueBase64,
@@ -649,6 +759,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void writeDescriptor(int descriptorIdentifier,
                                 String valueBase64,
                                 String transactionId,
@@ -665,6 +776,7 @@ public class PlatformToJsBridge {
         );
     }
 
+    @Override
     public void cancelTransaction(String transactionId) {
         WritableMap arguments = Arguments.createMap();
         arguments.putString(JsArgumentName.TRANSACTION_ID, transactionId);
@@ -696,13 +808,70 @@ public class PlatformToJsBridge {
         };
     }
 
-    private void callMethod(String methodName, @Nullable ReadableMap arguments, JsCallHandler.Callback callback) {
+    @Nullable
+    private JsCallHandler.Callback createWriteCallback(
+            @Nullable final OnSuccessCallback<Characteristic> onSuccessCallback, @Nullable final OnErrorCallback onErrorCallback) {
+        if (onSuccessCallback == null && onErrorCallback == null) {
+            //sent without a callback ID, so JS doesn't return the call at all
+            return null;
+        }
+        if (onSuccessCallback != null && onErrorCallback != null) {
+            return createCallbackReturningCharacteristicOrError(onSuccessCallback, onErrorCallback);
+        }
+        return new JsCallHandler.Callback() {
+            @Override
+            public void invoke(ReadableMap args) {
+                if (args.hasKey(NativeArgumentName.ERROR)) {
+                    BleError error = errorParser.parseError(args.getMap(NativeArgumentName.ERROR));
+                    if (onErrorCallback != null) {
+                        onErrorCallback.onError(error);
+                    } else {
+                        Log.w(TAG, "Dropping error of a write without error callback", error);
+                    }
+                } else if (onSuccessCallback != null) {
+                    onSuccessCallback.onSuccess(gattParser.parseCharacteristic(args.getMap(NativeArgumentName.VALUE)));
+                }
+            }
+        };
+    }
+
+    private void callMethod(String methodName, @Nullable ReadableMap arguments, @Nullable JsCallHandler.Callback callback) {
+        callMethod(methodName, arguments, callback, callTimeoutMillis);
+    }
+
+    private void callMethod(String methodName,
+                            @Nullable ReadableMap arguments,
+                            @Nullable JsCallHandler.Callback callback,
+                            long timeoutMillis) {
         WritableMap params = Arguments.createMap();
-        String callbackId = callHandler.addCallback(callback);
+        int callbackId = callback != null
+                ? callHandler.addCallback(methodName, getDeviceKey(arguments), callback, timeoutMillis)
+                : JsCallHandler.NO_CALLBACK_ID;
         params.putString("methodName", methodName);
-        params.putString("callbackId", callbackId);
+        params.putInt("callbackId", callbackId);
         params.putMap("arguments", arguments);
-        callJsMethod(params);
+        if (methodCallBatcher.isEnabled()) {
+            methodCallBatcher.add(params);
+        } else {
+            callJsMethod(params);
+        }
+    }
+
+    @Nullable
+    private String getDeviceKey(@Nullable ReadableMap arguments) {
+        if (arguments == null) {
+            return null;
+        }
+        if (arguments.hasKey(JsArgumentName.IDENTIFIER)) {
+            return arguments.getString(JsArgumentName.IDENTIFIER);
+        }
+        String[] gattIdNames = {JsArgumentName.SERVICE_ID, JsArgumentName.CHARACTERISTIC_ID, JsArgumentName.DESCRIPTOR_ID};
+        for (String gattIdName : gattIdNames) {
+            if (arguments.hasKey(gattIdName)) {
+                return deviceKeyResolver.deviceKeyForGattId(arguments.getInt(gattIdName));
+            }
+        }
+        return null;
     }
 
     private void callJsMethod(ReadableMap params) {
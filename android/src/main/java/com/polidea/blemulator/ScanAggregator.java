@@ -0,0 +1,122 @@
+package com.polidea.blemulator;
+
+import com.polidea.blemulator.parser.SerializedScanResult;
+import com.polidea.multiplatformbleadapter.AdvertisementData;
+import com.polidea.multiplatformbleadapter.ScanResult;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ScanAggregator {
+    public static final long THROTTLING_DISABLED = 0;
+    public static final double DEFAULT_RSSI_SMOOTHING_FACTOR = 0.25;
+    public static final int DEFAULT_MAX_TRACKED_DEVICES = 4096;
+
+    private final long minIntervalMillis;
+    private final double rssiSmoothingFactor;
+    private final Map<String, TrackedDevice> trackedDevices;
+
+    public ScanAggregator(long minIntervalMillis, double rssiSmoothingFactor, final int maxTrackedDevices) {
+        if (minIntervalMillis <= THROTTLING_DISABLED) {
+            throw new IllegalArgumentException("minIntervalMillis has to be positive, was " + minIntervalMillis);
+        }
+        if (rssiSmoothingFactor <= 0 || rssiSmoothingFactor > 1) {
+            throw new IllegalArgumentException("rssiSmoothingFactor has to be in (0, 1], was " + rssiSmoothingFactor);
+        }
+        if (maxTrackedDevices < 1) {
+            throw new IllegalArgumentException("maxTrackedDevices has to be positive, was " + maxTrackedDevices);
+        }
+        this.minIntervalMillis = minIntervalMillis;
+        this.rssiSmoothingFactor = rssiSmoothingFactor;
+        this.trackedDevices = new LinkedHashMap<String, TrackedDevice>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TrackedDevice> eldest) {
+                return size() > maxTrackedDevices;
+            }
+        };
+    }
+
+    public synchronized ScanResult process(ScanResult scanResult, long nowMillis) {
+        TrackedDevice trackedDevice = trackedDevices.get(scanResult.getDeviceId());
+        if (trackedDevice == null) {
+            trackedDevices.put(scanResult.getDeviceId(), new TrackedDevice(scanResult, nowMillis));
+            return scanResult;
+        }
+
+        trackedDevice.smoothedRssi += rssiSmoothingFactor * (scanResult.getRssi() - trackedDevice.smoothedRssi);
+        boolean isPayloadChanged = !hasSamePayload(trackedDevice.lastEmitted, scanResult);
+        if (!isPayloadChanged && nowMillis - trackedDevice.lastEmittedMillis < minIntervalMillis) {
+            return null;
+        }
+
+        ScanResult smoothedResult = new ScanResult(
+                scanResult.getDeviceId(),
+                scanResult.getDeviceName(),
+                (int) Math.round(trackedDevice.smoothedRssi),
+                scanResult.getMtu(),
+                scanResult.isConnectable(),
+                scanResult.getOverflowServiceUUIDs(),
+                scanResult.getAdvertisementData()
+        );
+        trackedDevice.lastEmitted = scanResult;
+        trackedDevice.lastEmittedMillis = nowMillis;
+        return smoothedResult;
+    }
+
+    private static boolean hasSamePayload(ScanResult previous, ScanResult current) {
+        if (previous instanceof SerializedScanResult && current instanceof SerializedScanResult) {
+            return ((SerializedScanResult) previous).getPayloadHash() == ((SerializedScanResult) current).getPayloadHash();
+        }
+        if (!equal(previous.getDeviceName(), current.getDeviceName())
+                || previous.isConnectable() != current.isConnectable()
+                || !Arrays.equals(previous.getOverflowServiceUUIDs(), current.getOverflowServiceUUIDs())) {
+            return false;
+        }
+
+        AdvertisementData previousData = previous.getAdvertisementData();
+        AdvertisementData currentData = current.getAdvertisementData();
+        if (previousData == null || currentData == null) {
+            return previousData == currentData;
+        }
+        return Arrays.equals(previousData.getManufacturerData(), currentData.getManufacturerData())
+                && hasSameServiceData(previousData.getServiceData(), currentData.getServiceData())
+                && equal(previousData.getServiceUUIDs(), currentData.getServiceUUIDs())
+                && equal(previousData.getLocalName(), currentData.getLocalName())
+                && equal(previousData.getTxPowerLevel(), currentData.getTxPowerLevel())
+                && equal(previousData.getSolicitedServiceUUIDs(), currentData.getSolicitedServiceUUIDs());
+    }
+
+    private static boolean hasSameServiceData(Map<UUID, byte[]> previous, Map<UUID, byte[]> current) {
+        if (previous == null || current == null) {
+            return previous == current;
+        }
+        if (previous.size() != current.size()) {
+            return false;
+        }
+        for (Map.Entry<UUID, byte[]> entry : previous.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), current.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(Object first, Object second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    private static class TrackedDevice {
+        private ScanResult lastEmitted;
+        private long lastEmittedMillis;
+        private double smoothedRssi;
+
+        TrackedDevice(ScanResult scanResult, long nowMillis) {
+            this.lastEmitted = scanResult;
+            this.lastEmittedMillis = nowMillis;
+            this.smoothedRssi = scanResult.getRssi();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.polidea.blemulator;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.polidea.blemulator.parser.UuidParser;
+import com.polidea.blemulator.parser.ValueParser;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public class ScanFilterIndex {
+    private static final int MANUFACTURER_ID_LENGTH = 2;
+
+    private final BitSet shortServiceUuids = new BitSet();
+    private final Set<UUID> serviceUuids = new HashSet<>();
+    private final boolean hasServiceUuidFilter;
+    private final BitSet manufacturerIds = new BitSet();
+    private final Map<UUID, byte[]> serviceDataPrefixes = new HashMap<>();
+    private final int scratchLength;
+
+    public ScanFilterIndex(String[] filteredUuids, int[] manufacturerIds, Map<UUID, byte[]> serviceDataPrefixes) {
+        if (filteredUuids != null) {
+            for (String uuid : filteredUuids) {
+                int shortUuid = UuidParser.parseShortUuid(uuid);
+                if (shortUuid != UuidParser.NOT_A_SHORT_UUID) {
+                    shortServiceUuids.set(shortUuid);
+                } else {
+                    serviceUuids.add(UuidParser.parse(uuid));
+                }
+            }
+        }
+        hasServiceUuidFilter = !shortServiceUuids.isEmpty() || !serviceUuids.isEmpty();
+        if (manufacturerIds != null) {
+            for (int manufacturerId : manufacturerIds) {
+                this.manufacturerIds.set(manufacturerId);
+            }
+        }
+        int maxPrefixLength = MANUFACTURER_ID_LENGTH;
+        if (serviceDataPrefixes != null) {
+            this.serviceDataPrefixes.putAll(serviceDataPrefixes);
+            for (byte[] prefix : serviceDataPrefixes.values()) {
+                maxPrefixLength = Math.max(maxPrefixLength, prefix.length);
+            }
+        }
+        scratchLength = maxPrefixLength;
+    }
+
+    public boolean isEmpty() {
+        return !hasServiceUuidFilter && manufacturerIds.isEmpty() && serviceDataPrefixes.isEmpty();
+    }
+
+    public boolean matches(ReadableMap scanResult) {
+        if (hasServiceUuidFilter && !matchesServiceUuids(scanResult)) {
+            return false;
+        }
+        if (manufacturerIds.isEmpty() && serviceDataPrefixes.isEmpty()) {
+            return true;
+        }
+        //one buffer per scan result for all prefixes, matches can run on several threads
+        byte[] scratch = new byte[scratchLength];
+        return (manufacturerIds.isEmpty() || matchesManufacturerId(scanResult, scratch))
+                && (serviceDataPrefixes.isEmpty() || matchesServiceData(scanResult, scratch));
+    }
+
+    private boolean matchesServiceUuids(ReadableMap scanResult) {
+        return containsFilteredUuid(getArrayOrNull(scanResult, NativeArgumentName.SERVICE_UUIDS))
+                || containsFilteredUuid(getArrayOrNull(scanResult, NativeArgumentName.OVERFLOW_SERVICE_UUIDS));
+    }
+
+    private boolean containsFilteredUuid(ReadableArray uuids) {
+        if (uuids == null) {
+            return false;
+        }
+        for (int i = 0; i < uuids.size(); i++) {
+            String uuid = uuids.getString(i);
+            int shortUuid = UuidParser.parseShortUuid(uuid);
+            if (shortUuid != UuidParser.NOT_A_SHORT_UUID) {
+                if (shortServiceUuids.get(shortUuid)) {
+                    return true;
+                }
+            } else if (!serviceUuids.isEmpty() && serviceUuids.contains(UuidParser.parse(uuid))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesManufacturerId(ReadableMap scanResult, byte[] scratch) {
+        if (!scanResult.hasKey(NativeArgumentName.MANUFACTURER_DATA) || scanResult.isNull(NativeArgumentName.MANUFACTURER_DATA)) {
+            return false;
+        }
+        if (ValueParser.parsePrefix(scanResult, NativeArgumentName.MANUFACTURER_DATA, scratch) < MANUFACTURER_ID_LENGTH) {
+            return false;
+        }
+        int manufacturerId = (scratch[0] & 0xFF) | ((scratch[1] & 0xFF) << 8);
+        return manufacturerIds.get(manufacturerId);
+    }
+
+    private boolean matchesServiceData(ReadableMap scanResult, byte[] scratch) {
+        if (!scanResult.hasKey(NativeArgumentName.SERVICE_DATA) || scanResult.isNull(NativeArgumentName.SERVICE_DATA)) {
+            return false;
+        }
+        ReadableMap serviceData = scanResult.getMap(NativeArgumentName.SERVICE_DATA);
+        ReadableMapKeySetIterator keySetIterator = serviceData.keySetIterator();
+        while (keySetIterator.hasNextKey()) {
+            String key = keySetIterator.nextKey();
+            byte[] prefix = serviceDataPrefixes.get(UuidParser.parse(key));
+            if (prefix != null && ValueParser.parsePrefix(serviceData, key, scratch) >= prefix.length && startsWith(scratch, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ReadableArray getArrayOrNull(ReadableMap map, String key) {
+        return map.hasKey(key) && !map.isNull(key) ? map.getArray(key) : null;
+    }
+
+    private static boolean startsWith(byte[] value, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (value[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
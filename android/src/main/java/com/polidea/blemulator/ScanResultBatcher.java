@@ -0,0 +1,68 @@
+package com.polidea.blemulator;
+
+import com.polidea.multiplatformbleadapter.OnEventCallback;
+import com.polidea.multiplatformbleadapter.ScanResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ScanResultBatcher {
+    public static final long NO_REPORT_DELAY = 0;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory("BlemulatorScanBatch"));
+
+    private final OnEventCallback<ScanResult> onEventCallback;
+    private final ScheduledFuture<?> delivery;
+    private List<ScanResult> pendingResults = new ArrayList<>();
+    private boolean isStopped = false;
+
+    public ScanResultBatcher(long reportDelayMillis, OnEventCallback<ScanResult> onEventCallback) {
+        if (reportDelayMillis <= NO_REPORT_DELAY) {
+            throw new IllegalArgumentException("reportDelayMillis has to be positive, was " + reportDelayMillis);
+        }
+        this.onEventCallback = onEventCallback;
+        delivery = SCHEDULER.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                deliverPendingResults();
+            }
+        }, reportDelayMillis, reportDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void add(ScanResult scanResult) {
+        if (!isStopped) {
+            pendingResults.add(scanResult);
+        }
+    }
+
+    public synchronized void stop() {
+        isStopped = true;
+        pendingResults = new ArrayList<>();
+        delivery.cancel(false);
+    }
+
+    private void deliverPendingResults() {
+        List<ScanResult> results;
+        synchronized (this) {
+            if (isStopped || pendingResults.isEmpty()) {
+                return;
+            }
+            results = pendingResults;
+            pendingResults = new ArrayList<>();
+        }
+        for (ScanResult result : results) {
+            synchronized (this) {
+                //stop may have been called while the batch was being delivered
+                if (isStopped) {
+                    return;
+                }
+            }
+            onEventCallback.onEvent(result);
+        }
+    }
+}
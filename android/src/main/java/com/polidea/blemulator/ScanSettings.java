@@ -0,0 +1,73 @@
+package com.polidea.blemulator;
+
+import java.util.Map;
+import java.util.UUID;
+
+import androidx.annotation.Nullable;
+
+public class ScanSettings {
+    private volatile long reportDelayMillis = ScanResultBatcher.NO_REPORT_DELAY;
+    private volatile long throttleIntervalMillis = ScanAggregator.THROTTLING_DISABLED;
+    private volatile double rssiSmoothingFactor = ScanAggregator.DEFAULT_RSSI_SMOOTHING_FACTOR;
+    private volatile int maxTrackedDevices = ScanAggregator.DEFAULT_MAX_TRACKED_DEVICES;
+    private volatile int[] manufacturerIdFilter = null;
+    private volatile Map<UUID, byte[]> serviceDataPrefixFilter = null;
+    private volatile boolean isEagerDecodingEnabled = false;
+
+    public void setReportDelay(long reportDelayMillis) {
+        if (reportDelayMillis < 0) {
+            throw new IllegalArgumentException("reportDelayMillis can't be negative, was " + reportDelayMillis);
+        }
+        this.reportDelayMillis = reportDelayMillis;
+    }
+
+    public long getReportDelayMillis() {
+        return reportDelayMillis;
+    }
+
+    public void setThrottling(long minIntervalMillis, double rssiSmoothingFactor, int maxTrackedDevices) {
+        if (rssiSmoothingFactor <= 0 || rssiSmoothingFactor > 1) {
+            throw new IllegalArgumentException("rssiSmoothingFactor has to be in (0, 1], was " + rssiSmoothingFactor);
+        }
+        if (maxTrackedDevices < 1) {
+            throw new IllegalArgumentException("maxTrackedDevices has to be positive, was " + maxTrackedDevices);
+        }
+        this.throttleIntervalMillis = Math.max(minIntervalMillis, ScanAggregator.THROTTLING_DISABLED);
+        this.rssiSmoothingFactor = rssiSmoothingFactor;
+        this.maxTrackedDevices = maxTrackedDevices;
+    }
+
+    public void setFilters(@Nullable int[] manufacturerIdFilter, @Nullable Map<UUID, byte[]> serviceDataPrefixFilter) {
+        if (manufacturerIdFilter != null) {
+            for (int manufacturerId : manufacturerIdFilter) {
+                if (manufacturerId < 0 || manufacturerId > 0xFFFF) {
+                    throw new IllegalArgumentException("manufacturerId has to fit in 16 bits, was " + manufacturerId);
+                }
+            }
+        }
+        this.manufacturerIdFilter = manufacturerIdFilter;
+        this.serviceDataPrefixFilter = serviceDataPrefixFilter;
+    }
+
+    public void setEagerDecodingEnabled(boolean enabled) {
+        this.isEagerDecodingEnabled = enabled;
+    }
+
+    public boolean isEagerDecodingEnabled() {
+        return isEagerDecodingEnabled;
+    }
+
+    @Nullable
+    ScanFilterIndex createFilterIndex(@Nullable String[] filteredUuids) {
+        ScanFilterIndex filterIndex = new ScanFilterIndex(filteredUuids, manufacturerIdFilter, serviceDataPrefixFilter);
+        return filterIndex.isEmpty() ? null : filterIndex;
+    }
+
+    @Nullable
+    ScanAggregator createAggregator() {
+        if (throttleIntervalMillis == ScanAggregator.THROTTLING_DISABLED) {
+            return null;
+        }
+        return new ScanAggregator(throttleIntervalMillis, rssiSmoothingFactor, maxTrackedDevices);
+    }
+}
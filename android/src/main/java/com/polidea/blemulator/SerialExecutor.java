@@ -0,0 +1,75 @@
+package com.polidea.blemulator;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+public class SerialExecutor implements Executor {
+    private static final String TAG = SerialExecutor.class.getSimpleName();
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean isDraining = false;
+    private boolean isRetired = false;
+
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!tryExecute(task)) {
+            throw new IllegalStateException("Serial executor was retired");
+        }
+    }
+
+    //returns false once the executor was retired, the task is not queued then
+    public boolean tryExecute(Runnable task) {
+        synchronized (this) {
+            if (isRetired) {
+                return false;
+            }
+            tasks.add(task);
+            if (isDraining) {
+                return true;
+            }
+            isDraining = true;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        });
+        return true;
+    }
+
+    //meant to run as a task of this executor, so nothing else runs concurrently when it succeeds
+    public synchronized boolean retireIfIdle() {
+        if (!tasks.isEmpty()) {
+            return false;
+        }
+        isRetired = true;
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                task = tasks.poll();
+                if (task == null) {
+                    isDraining = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Serially executed task failed", e);
+            }
+        }
+    }
+}
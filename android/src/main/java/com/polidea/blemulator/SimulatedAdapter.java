@@ -1,11 +1,18 @@
 package com.polidea.blemulator;
 
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.os.SystemClock;
 import android.util.Log;
 
+import com.facebook.react.bridge.ReadableMap;
 import com.polidea.blemulator.containers.CachedCharacteristic;
 import com.polidea.blemulator.containers.CachedService;
 import com.polidea.blemulator.containers.DeviceContainer;
 import com.polidea.blemulator.containers.DeviceManager;
+import com.polidea.blemulator.containers.DiscoveredGatts;
+import com.polidea.blemulator.containers.GattTable;
+import com.polidea.blemulator.containers.ValueCacheSettings;
+import com.polidea.blemulator.parser.ValueParser;
 import com.polidea.multiplatformbleadapter.BleAdapter;
 import com.polidea.multiplatformbleadapter.Characteristic;
 import com.polidea.multiplatformbleadapter.ConnectionOptions;
@@ -15,6 +22,7 @@ import com.polidea.multiplatformbleadapter.Device;
 import com.polidea.multiplatformbleadapter.OnErrorCallback;
 import com.polidea.multiplatformbleadapter.OnEventCallback;
 import com.polidea.multiplatformbleadapter.OnSuccessCallback;
+import com.polidea.multiplatformbleadapter.RefreshGattMoment;
 import com.polidea.multiplatformbleadapter.ScanResult;
 import com.polidea.multiplatformbleadapter.Service;
 import com.polidea.multiplatformbleadapter.errors.BleError;
@@ -25,55 +33,125 @@ import com.polidea.multiplatformbleadapter.utils.Constants;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import androidx.annotation.Nullable;
 
 public class SimulatedAdapter implements BleAdapter {
 
     private static final String TAG = SimulatedAdapter.class.getName();
-    private final BlemulatorModule module;
-    private final PlatformToJsBridge bridge;
+    private final AdapterRegistry registry;
+    private final SimulationTransport bridge;
+    private final ValueCacheSettings valueCacheSettings;
+    private final WritePipelineSettings writePipelineSettings;
+    private final ScanSettings scanSettings;
+    private final CallbackDispatcher callbackDispatcher;
     private static final int UNUSED_ANDROID_ERROR_CODE = 0;
 
-    private @Constants.BluetoothState
+    private volatile @Constants.BluetoothState
     String adapterState = Constants.BluetoothState.UNKNOWN;
     private OnEventCallback<String> onAdapterStateChangeCallback = null;
     private CallbackContainer<ScanResult> scanResultCallbackContainer = null;
+    private ScanResultBatcher scanResultBatcher = null;
+    private ScanAggregator scanAggregator = null;
+    private volatile ScanFilterIndex scanFilterIndex = null;
     private DeviceManager deviceManager = new DeviceManager();
     private Map<String, OnEventCallback<ConnectionState>> connectionStateCallbacks = new HashMap<>();
     private Map<String, CallbackContainer<Characteristic>> monitoringCallbacks = new HashMap<>();
-    private @Constants.BluetoothLogLevel String logLevel = Constants.BluetoothLogLevel.VERBOSE;
-
-    public SimulatedAdapter(BlemulatorModule module, PlatformToJsBridge bridge) {
-        this.module = module;
+    //read off the event loop to order notifications with the other events of their device
+    private final ConcurrentMap<String, String> monitoredDeviceKeys = new ConcurrentHashMap<>();
+    private final Map<String, WritePipeline> writePipelines = new HashMap<>();
+    private final AdapterEventLoop eventLoop = new AdapterEventLoop(TAG);
+    private volatile @Constants.BluetoothLogLevel String logLevel = Constants.BluetoothLogLevel.VERBOSE;
+
+    public SimulatedAdapter(AdapterRegistry registry,
+                            SimulationTransport bridge,
+                            ValueCacheSettings valueCacheSettings,
+                            WritePipelineSettings writePipelineSettings,
+                            ScanSettings scanSettings,
+                            DispatchSettings dispatchSettings) {
+        this.registry = registry;
         this.bridge = bridge;
+        this.valueCacheSettings = valueCacheSettings;
+        this.writePipelineSettings = writePipelineSettings;
+        this.scanSettings = scanSettings;
+        this.callbackDispatcher = new CallbackDispatcher(dispatchSettings);
     }
 
-    public void addScanResult(ScanResult scanResult, BleError error) {
+    public void addScanResult(final ScanResult scanResult, final BleError error) {
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                handleScanResult(scanResult, error);
+            }
+        });
+    }
+
+    private void handleScanResult(ScanResult scanResult, BleError error) {
         if (error != null) {
-            scanResultCallbackContainer.getOnErrorCallback().onError(error);
-            stopDeviceScan();
+            if (scanResultCallbackContainer != null) {
+                scanResultCallbackContainer.getOnErrorCallback().onError(error);
+                stopDeviceScan();
+            }
             return;
         }
 
-        if (scanResultCallbackContainer != null) {
+        if (scanAggregator != null) {
+            scanResult = scanAggregator.process(scanResult, SystemClock.elapsedRealtime());
+            if (scanResult == null) {
+                return;
+            }
+        }
+
+        if (scanResultBatcher != null) {
+            scanResultBatcher.add(scanResult);
+        } else if (scanResultCallbackContainer != null) {
             scanResultCallbackContainer.getOnEventCallback().onEvent(scanResult);
         }
         deviceManager.addDeviceIfUnknown(scanResult.getDeviceId(), scanResult.getDeviceName());
     }
 
-    public void publishAdapterState(@Constants.BluetoothState String newState) {
+    public boolean matchesScanFilter(ReadableMap serializedScanResult) {
+        ScanFilterIndex filterIndex = scanFilterIndex;
+        return filterIndex == null || filterIndex.matches(serializedScanResult);
+    }
+
+    public void publishAdapterState(@Constants.BluetoothState final String newState) {
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                handleAdapterState(newState);
+            }
+        });
+    }
+
+    private void handleAdapterState(@Constants.BluetoothState String newState) {
         adapterState = newState;
         if (onAdapterStateChangeCallback != null) {
             onAdapterStateChangeCallback.onEvent(newState);
         }
     }
 
-    public void publishNotification(String transactionId, Characteristic characteristic, BleError error) {
+    public void publishNotification(final String transactionId, final Characteristic characteristic, final BleError error) {
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                handleNotification(transactionId, characteristic, error);
+            }
+        });
+    }
+
+    private void handleNotification(String transactionId, Characteristic characteristic, BleError error) {
         if (monitoringCallbacks.containsKey(transactionId)) {
             if (characteristic != null) {
+                updateValueCache(characteristic);
+                updateNotifyingState(characteristic);
                 monitoringCallbacks.get(transactionId).getOnEventCallback().onEvent(characteristic);
             } else if (error != null) {
                 monitoringCallbacks.get(transactionId).getOnErrorCallback().onError(error);
                 monitoringCallbacks.remove(transactionId);
+                monitoredDeviceKeys.remove(transactionId);
             } else {
                 Log.w(TAG, "publishNotification called without valid arguments");
             }
@@ -82,12 +160,92 @@ public class SimulatedAdapter implements BleAdapter {
         }
     }
 
-    public void publishConnectionState(String peripheralId, ConnectionState state) {
+    public void publishNotification(final String transactionId, final int characteristicId, final byte[] value) {
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                handleNotification(transactionId, characteristicId, value);
+            }
+        });
+    }
+
+    private void handleNotification(String transactionId, int characteristicId, byte[] value) {
+        CachedCharacteristic cachedCharacteristic = findCachedCharacteristic(characteristicId);
+        if (cachedCharacteristic == null) {
+            Log.e(TAG, "Trying to publish notification of unknown characteristic " + characteristicId);
+            return;
+        }
+        //batched notifications carry no characteristic state, so the copy takes it from the live monitor
+        cachedCharacteristic.setNotifying(monitoringCallbacks.containsKey(transactionId));
+        Characteristic characteristic = cachedCharacteristic.getCharacteristic();
+        characteristic.setValue(value);
+        handleNotification(transactionId, characteristic, null);
+    }
+
+    private void updateNotifyingState(Characteristic characteristic) {
+        CachedCharacteristic cachedCharacteristic = findCachedCharacteristic(characteristic.getId());
+        if (cachedCharacteristic != null) {
+            cachedCharacteristic.setNotifying(characteristic.isNotifying());
+        }
+    }
+
+    public void publishServiceChanged(final String deviceIdentifier, final int startHandle, final int endHandle) {
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                handleServiceChanged(deviceIdentifier, startHandle, endHandle);
+            }
+        });
+    }
+
+    private void handleServiceChanged(final String deviceIdentifier, int startHandle, int endHandle) {
+        final DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
+        if (deviceContainer == null || !deviceContainer.isDiscoveryDone()) {
+            return;
+        }
+
+        deviceContainer.invalidateHandleRange(startHandle, endHandle);
+        bridge.discoverGattsInRange(
+                deviceIdentifier,
+                startHandle,
+                endHandle,
+                onEventLoop(new OnSuccessCallback<GattTable>() {
+                    @Override
+                    public void onSuccess(GattTable data) {
+                        if (deviceContainer.isDiscoveryDone()) {
+                            deviceContainer.addGatts(data);
+                        }
+                    }
+                }),
+                onEventLoop(new OnErrorCallback() {
+                    @Override
+                    public void onError(BleError error) {
+                        //the invalidated services are gone and can't be trusted anymore, so discovery has to start over
+                        Log.e(TAG, "Partial rediscovery of " + deviceIdentifier + " failed, full discovery required", error);
+                        if (deviceContainer.isDiscoveryDone()) {
+                            deviceContainer.onPartialDiscoveryFailed();
+                        }
+                    }
+                }));
+    }
+
+    public void publishConnectionState(final String peripheralId, final ConnectionState state) {
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                handleConnectionState(peripheralId, state);
+            }
+        });
+    }
+
+    private void handleConnectionState(String peripheralId, ConnectionState state) {
         if (connectionStateCallbacks.containsKey(peripheralId)) {
             connectionStateCallbacks.get(peripheralId).onEvent(state);
             deviceManager.updateConnectionStateForDevice(peripheralId, state);
             if (state == ConnectionState.DISCONNECTED) {
                 connectionStateCallbacks.remove(peripheralId);
+                removeWritePipeline(peripheralId);
+                callbackDispatcher.release(peripheralId);
             }
         } else {
             throw new IllegalStateException("No connection state callback for peripheral id:" + peripheralId);
@@ -95,31 +253,57 @@ public class SimulatedAdapter implements BleAdapter {
     }
 
     @Override
-    public void createClient(String restoreStateIdentifier, OnEventCallback<String> onAdapterStateChangeCallback, OnEventCallback<Integer> onStateRestored) {
+    public void createClient(final String restoreStateIdentifier, final OnEventCallback<String> onAdapterStateChangeCallback, final OnEventCallback<Integer> onStateRestored) {
         Log.i(TAG, "createClient called");
-        this.onAdapterStateChangeCallback = onAdapterStateChangeCallback;
-        module.registerAdapter(this);
-        bridge.createClient();
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                SimulatedAdapter.this.onAdapterStateChangeCallback =
+                        callbackDispatcher.dispatchingEvent(CallbackDispatcher.ADAPTER_KEY, onAdapterStateChangeCallback);
+                registry.registerAdapter(SimulatedAdapter.this);
+                bridge.createClient();
+            }
+        });
     }
 
     @Override
     public void destroyClient() {
         Log.i(TAG, "destroyClient called");
-        this.onAdapterStateChangeCallback = null;
-        bridge.destroyClient();
-        module.deregisterAdapter();
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                onAdapterStateChangeCallback = null;
+                bridge.destroyClient();
+                registry.deregisterAdapter(SimulatedAdapter.this);
+                eventLoop.stop();
+            }
+        });
     }
 
     @Override
-    public void enable(String transactionId, OnSuccessCallback<Void> onSuccessCallback, OnErrorCallback onErrorCallback) {
+    public void enable(final String transactionId, final OnSuccessCallback<Void> onSuccessCallback, final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "enable called");
-        bridge.enable(transactionId, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Void> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(CallbackDispatcher.ADAPTER_KEY, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(CallbackDispatcher.ADAPTER_KEY, onErrorCallback);
+                bridge.enable(transactionId, dispatchedOnSuccessCallback, dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
-    public void disable(String transactionId, OnSuccessCallback<Void> onSuccessCallback, OnErrorCallback onErrorCallback) {
+    public void disable(final String transactionId, final OnSuccessCallback<Void> onSuccessCallback, final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "disable called");
-        bridge.disable(transactionId, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Void> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(CallbackDispatcher.ADAPTER_KEY, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(CallbackDispatcher.ADAPTER_KEY, onErrorCallback);
+                bridge.disable(transactionId, dispatchedOnSuccessCallback, dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
@@ -129,219 +313,369 @@ public class SimulatedAdapter implements BleAdapter {
     }
 
     @Override
-    public void startDeviceScan(String[] filteredUUIDs,
-                                int scanMode,
-                                int callbackType,
-                                OnEventCallback<ScanResult> onEventCallback,
-                                OnErrorCallback onErrorCallback) {
+    public void startDeviceScan(final String[] filteredUUIDs,
+                                final int scanMode,
+                                final int callbackType,
+                                final OnEventCallback<ScanResult> onEventCallback,
+                                final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "startDeviceScan called");
-        if (scanResultCallbackContainer == null) {
-            bridge.startScan(filteredUUIDs, scanMode, callbackType, onErrorCallback);
-            scanResultCallbackContainer = new CallbackContainer<>(onEventCallback, onErrorCallback);
-        } else {
-            throw new IllegalStateException("Scan already in progress");
-        }
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnEventCallback<ScanResult> dispatchedOnEventCallback = callbackDispatcher.dispatchingEvent(CallbackDispatcher.SCAN_KEY, onEventCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(CallbackDispatcher.SCAN_KEY, onErrorCallback);
+                if (scanResultCallbackContainer == null) {
+                    bridge.startScan(filteredUUIDs, scanMode, callbackType, dispatchedOnErrorCallback);
+                    scanResultCallbackContainer = new CallbackContainer<>(dispatchedOnEventCallback, dispatchedOnErrorCallback);
+                    long reportDelayMillis = scanSettings.getReportDelayMillis();
+                    if (reportDelayMillis > ScanResultBatcher.NO_REPORT_DELAY) {
+                        scanResultBatcher = new ScanResultBatcher(reportDelayMillis, dispatchedOnEventCallback);
+                    }
+                    scanAggregator = scanSettings.createAggregator();
+                    scanFilterIndex = scanSettings.createFilterIndex(filteredUUIDs);
+                } else {
+                    dispatchedOnErrorCallback.onError(new BleError(BleErrorCode.ScanStartFailed, "Scan already in progress", UNUSED_ANDROID_ERROR_CODE));
+                }
+            }
+        });
     }
 
     @Override
     public void stopDeviceScan() {
         Log.i(TAG, "stopDeviceScan called");
-        bridge.stopScan();
-        scanResultCallbackContainer = null;
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                bridge.stopScan();
+                scanResultCallbackContainer = null;
+                if (scanResultBatcher != null) {
+                    scanResultBatcher.stop();
+                    scanResultBatcher = null;
+                }
+                scanAggregator = null;
+                scanFilterIndex = null;
+            }
+        });
     }
 
     @Override
-    public void requestConnectionPriorityForDevice(String deviceIdentifier,
-                                                   int connectionPriority,
-                                                   String transactionId,
-                                                   OnSuccessCallback<Device> onSuccessCallback,
-                                                   OnErrorCallback onErrorCallback) {
+    public void requestConnectionPriorityForDevice(final String deviceIdentifier,
+                                                   final int connectionPriority,
+                                                   final String transactionId,
+                                                   final OnSuccessCallback<Device> onSuccessCallback,
+                                                   final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "requestConnectionPriorityForDevice called");
-        bridge.requestConnectionPriorityForDevice(
-                deviceIdentifier,
-                connectionPriority,
-                transactionId,
-                onSuccessCallback,
-                onErrorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Device> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                bridge.requestConnectionPriorityForDevice(
+                        deviceIdentifier,
+                        connectionPriority,
+                        transactionId,
+                        dispatchedOnSuccessCallback,
+                        dispatchedOnErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void readRSSIForDevice(String deviceIdentifier,
-                                  String transactionId,
-                                  OnSuccessCallback<Device> onSuccessCallback,
-                                  OnErrorCallback onErrorCallback) {
+    public void readRSSIForDevice(final String deviceIdentifier,
+                                  final String transactionId,
+                                  final OnSuccessCallback<Device> onSuccessCallback,
+                                  final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "readRSSIForDevice called");
-        bridge.readRSSIForDevice(deviceIdentifier, transactionId, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Device> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                bridge.readRSSIForDevice(deviceIdentifier, transactionId, dispatchedOnSuccessCallback, dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
     public void requestMTUForDevice(final String deviceIdentifier,
-                                    int mtu,
-                                    String transactionId,
+                                    final int mtu,
+                                    final String transactionId,
                                     final OnSuccessCallback<Device> onSuccessCallback,
-                                    OnErrorCallback onErrorCallback) {
+                                    final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "requestMTUForDevice called, mtu: " + mtu);
-        OnSuccessCallback<Integer> modifiedOnSuccessCallback = new OnSuccessCallback<Integer>() {
+        eventLoop.execute(new Runnable() {
             @Override
-            public void onSuccess(Integer mtu) {
-                Device device = deviceManager.getDeviceContainer(deviceIdentifier).getDevice();
-                device.setMtu(mtu);
-                onSuccessCallback.onSuccess(device);
+            public void run() {
+                final OnSuccessCallback<Device> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                OnSuccessCallback<Integer> modifiedOnSuccessCallback = new OnSuccessCallback<Integer>() {
+                    @Override
+                    public void onSuccess(Integer mtu) {
+                        Device device = deviceManager.getDeviceContainer(deviceIdentifier).getDevice();
+                        device.setMtu(mtu);
+                        dispatchedOnSuccessCallback.onSuccess(device);
+                    }
+                };
+                bridge.requestMtu(deviceIdentifier, mtu, transactionId, onEventLoop(modifiedOnSuccessCallback), dispatchedOnErrorCallback);
             }
-        };
-        bridge.requestMtu(deviceIdentifier, mtu, transactionId, modifiedOnSuccessCallback, onErrorCallback);
+        });
     }
 
     @Override
-    public void getKnownDevices(String[] deviceIdentifiers,
-                                OnSuccessCallback<Device[]> onSuccessCallback,
-                                OnErrorCallback onErrorCallback) {
+    public void getKnownDevices(final String[] deviceIdentifiers,
+                                final OnSuccessCallback<Device[]> onSuccessCallback,
+                                final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "getKnownDevices called");
-        bridge.getKnownDevices(deviceIdentifiers, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Device[]> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(CallbackDispatcher.ADAPTER_KEY, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(CallbackDispatcher.ADAPTER_KEY, onErrorCallback);
+                bridge.getKnownDevices(deviceIdentifiers, dispatchedOnSuccessCallback, dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
-    public void getConnectedDevices(String[] serviceUUIDs,
-                                    OnSuccessCallback<Device[]> onSuccessCallback,
-                                    OnErrorCallback onErrorCallback) {
+    public void getConnectedDevices(final String[] serviceUUIDs,
+                                    final OnSuccessCallback<Device[]> onSuccessCallback,
+                                    final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "getConnectedDevices called");
-        bridge.getConnectedDevices(serviceUUIDs, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Device[]> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(CallbackDispatcher.ADAPTER_KEY, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(CallbackDispatcher.ADAPTER_KEY, onErrorCallback);
+                bridge.getConnectedDevices(serviceUUIDs, dispatchedOnSuccessCallback, dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
     public void connectToDevice(final String deviceIdentifier,
-                                ConnectionOptions connectionOptions,
+                                final ConnectionOptions connectionOptions,
                                 final OnSuccessCallback<Device> onSuccessCallback,
-                                OnEventCallback<ConnectionState> onConnectionStateChangedCallback,
-                                OnErrorCallback onErrorCallback) {
+                                final OnEventCallback<ConnectionState> onConnectionStateChangedCallback,
+                                final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "connectToDevice called");
-        deviceManager.addDeviceIfUnknown(deviceIdentifier, null);
-        connectionStateCallbacks.put(deviceIdentifier, onConnectionStateChangedCallback);
-        OnSuccessCallback<Device> modifiedOnSuccessCallback = new OnSuccessCallback<Device>() {
+        eventLoop.execute(new Runnable() {
             @Override
-            public void onSuccess(Device data) {
-                deviceManager.updateDevice(deviceIdentifier, data.getName());
-                onSuccessCallback.onSuccess(data);
+            public void run() {
+                final OnSuccessCallback<Device> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnEventCallback<ConnectionState> dispatchedOnConnectionStateChangedCallback = callbackDispatcher.dispatchingEvent(deviceIdentifier, onConnectionStateChangedCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                deviceManager.addDeviceIfUnknown(deviceIdentifier, null);
+                if (connectionOptions.getRefreshGattMoment() == RefreshGattMoment.ON_CONNECTED) {
+                    deviceManager.getDeviceContainer(deviceIdentifier).dropRetainedGatts();
+                }
+                connectionStateCallbacks.put(deviceIdentifier, dispatchedOnConnectionStateChangedCallback);
+                OnSuccessCallback<Device> modifiedOnSuccessCallback = new OnSuccessCallback<Device>() {
+                    @Override
+                    public void onSuccess(Device data) {
+                        deviceManager.updateDevice(deviceIdentifier, data.getName());
+                        dispatchedOnSuccessCallback.onSuccess(data);
+                    }
+                };
+                bridge.connect(deviceIdentifier, connectionOptions, onEventLoop(modifiedOnSuccessCallback), dispatchedOnErrorCallback);
             }
-        };
-        bridge.connect(deviceIdentifier, connectionOptions, modifiedOnSuccessCallback, onErrorCallback);
+        });
     }
 
     @Override
     public void cancelDeviceConnection(final String deviceIdentifier,
                                        final OnSuccessCallback<Device> onSuccessCallback,
-                                       OnErrorCallback onErrorCallback) {
+                                       final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "cancelDeviceConnection called");
-        OnSuccessCallback<Device> modifiedOnSuccessCallback = new OnSuccessCallback<Device>() {
+        eventLoop.execute(new Runnable() {
             @Override
-            public void onSuccess(Device data) {
-                onSuccessCallback.onSuccess(deviceManager.getDeviceContainer(deviceIdentifier).getDevice());
+            public void run() {
+                final OnSuccessCallback<Device> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                OnSuccessCallback<Device> modifiedOnSuccessCallback = new OnSuccessCallback<Device>() {
+                    @Override
+                    public void onSuccess(Device data) {
+                        dispatchedOnSuccessCallback.onSuccess(deviceManager.getDeviceContainer(deviceIdentifier).getDevice());
+                    }
+                };
+                bridge.cancelDeviceConnection(deviceIdentifier, onEventLoop(modifiedOnSuccessCallback), dispatchedOnErrorCallback);
             }
-        };
-        bridge.cancelDeviceConnection(deviceIdentifier, modifiedOnSuccessCallback, onErrorCallback);
+        });
     }
 
     @Override
-    public void isDeviceConnected(String deviceIdentifier,
-                                  OnSuccessCallback<Boolean> onSuccessCallback,
-                                  OnErrorCallback onErrorCallback) {
+    public void isDeviceConnected(final String deviceIdentifier,
+                                  final OnSuccessCallback<Boolean> onSuccessCallback,
+                                  final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "isDeviceConnected called");
-        bridge.isDeviceConnected(deviceIdentifier, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Boolean> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                bridge.isDeviceConnected(deviceIdentifier, dispatchedOnSuccessCallback, dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
     public void discoverAllServicesAndCharacteristicsForDevice(final String deviceIdentifier,
-                                                               String transactionId,
+                                                               final String transactionId,
                                                                final OnSuccessCallback<Device> onSuccessCallback,
-                                                               OnErrorCallback onErrorCallback) {
+                                                               final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "discoverAllServicesAndCharacteristicsForDevice called");
-        OnSuccessCallback<List<CachedService>> modifiedOnSuccess = new OnSuccessCallback<List<CachedService>>() {
+        eventLoop.execute(new Runnable() {
             @Override
-            public void onSuccess(List<CachedService> data) {
-                deviceManager.getDeviceContainer(deviceIdentifier).addGatts(data);
-                onSuccessCallback.onSuccess(deviceManager.getDeviceContainer(deviceIdentifier).getDevice());
+            public void run() {
+                OnSuccessCallback<Device> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
+                try {
+                    assertDeviceKnown(deviceContainer);
+                    assertDeviceConnected(deviceContainer);
+                } catch (BleError error) {
+                    if (dispatchedOnErrorCallback != null) {
+                        dispatchedOnErrorCallback.onError(error);
+                    }
+                    return;
+                }
+                discoverAllGatts(deviceContainer,
+                        transactionId,
+                        deviceContainer.getRetainedDatabaseHash(),
+                        dispatchedOnSuccessCallback,
+                        dispatchedOnErrorCallback);
+            }
+        });
+    }
+
+    private void discoverAllGatts(final DeviceContainer deviceContainer,
+                                  final String transactionId,
+                                  final String cachedDatabaseHash,
+                                  final OnSuccessCallback<Device> onSuccessCallback,
+                                  final OnErrorCallback onErrorCallback) {
+        OnSuccessCallback<DiscoveredGatts> modifiedOnSuccess = new OnSuccessCallback<DiscoveredGatts>() {
+            @Override
+            public void onSuccess(DiscoveredGatts data) {
+                if (deviceContainer.onDiscoveryCompleted(data)) {
+                    if (onSuccessCallback != null) {
+                        onSuccessCallback.onSuccess(deviceContainer.getDevice());
+                    }
+                } else if (cachedDatabaseHash != null) {
+                    //the retained database is gone, so ask for the full one instead
+                    discoverAllGatts(deviceContainer, transactionId, null, onSuccessCallback, onErrorCallback);
+                } else if (onErrorCallback != null) {
+                    onErrorCallback.onError(new BleError(BleErrorCode.ServicesDiscoveryFailed,
+                            "No retained GATT database with hash " + data.getDatabaseHash(), UNUSED_ANDROID_ERROR_CODE));
+                }
             }
         };
-        bridge.discoverAllGatts(deviceIdentifier, transactionId, modifiedOnSuccess, onErrorCallback);
+        bridge.discoverAllGatts(deviceContainer.getDevice().getId(),
+                transactionId,
+                cachedDatabaseHash,
+                onEventLoop(modifiedOnSuccess),
+                onErrorCallback);
     }
 
     @Override
-    public List<Service> getServicesForDevice(String deviceIdentifier) throws BleError {
+    public List<Service> getServicesForDevice(final String deviceIdentifier) throws BleError {
         Log.i(TAG, "getServicesForDevice called");
+        return eventLoop.submitAndWait(new AdapterEventLoop.Call<List<Service>>() {
+            @Override
+            public List<Service> call() throws BleError {
+                DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
 
-        DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
-
-        gattAccessAsserts(deviceContainer);
+                gattAccessAsserts(deviceContainer);
 
-        return deviceContainer.getServices();
+                return deviceContainer.getServices();
+            }
+        });
     }
 
     @Override
-    public List<Characteristic> getCharacteristicsForDevice(String deviceIdentifier, String serviceUUID) throws BleError {
+    public List<Characteristic> getCharacteristicsForDevice(final String deviceIdentifier, final String serviceUUID) throws BleError {
         Log.i(TAG, "getCharacteristicsForDevice called");
+        return eventLoop.submitAndWait(new AdapterEventLoop.Call<List<Characteristic>>() {
+            @Override
+            public List<Characteristic> call() throws BleError {
+                DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
 
-        DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
-
-        gattAccessAsserts(deviceContainer);
-        assertServiceFound(deviceContainer.getCachedService(serviceUUID));
+                gattAccessAsserts(deviceContainer);
+                assertServiceFound(deviceContainer.getCachedService(serviceUUID));
 
-        return deviceContainer.getCachedService(serviceUUID).getCharacteristics();
+                return deviceContainer.getCachedService(serviceUUID).getCharacteristics();
+            }
+        });
     }
 
     @Override
-    public List<Characteristic> getCharacteristicsForService(int serviceIdentifier) throws BleError {
+    public List<Characteristic> getCharacteristicsForService(final int serviceIdentifier) throws BleError {
         Log.i(TAG, "getCharacteristicsForService called");
+        return eventLoop.submitAndWait(new AdapterEventLoop.Call<List<Characteristic>>() {
+            @Override
+            public List<Characteristic> call() throws BleError {
+                DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(serviceIdentifier);
 
-        DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(serviceIdentifier);
-
-        gattAccessAsserts(deviceContainer);
-        assertServiceFound(deviceContainer.getCachedService(serviceIdentifier));
+                gattAccessAsserts(deviceContainer);
+                assertServiceFound(deviceContainer.getCachedService(serviceIdentifier));
 
-        return deviceContainer.getCachedService(serviceIdentifier).getCharacteristics();
+                return deviceContainer.getCachedService(serviceIdentifier).getCharacteristics();
+            }
+        });
     }
 
     @Override
-    public List<Descriptor> descriptorsForDevice(String deviceIdentifier, String serviceUUID, String characteristicUUID) throws BleError {
+    public List<Descriptor> descriptorsForDevice(final String deviceIdentifier, final String serviceUUID, final String characteristicUUID) throws BleError {
         Log.i(TAG, "descriptorsForDevice called");
+        return eventLoop.submitAndWait(new AdapterEventLoop.Call<List<Descriptor>>() {
+            @Override
+            public List<Descriptor> call() throws BleError {
+                DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
 
-        DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
-
-        gattAccessAsserts(deviceContainer);
-        assertServiceFound(deviceContainer.getCachedService(serviceUUID));
+                gattAccessAsserts(deviceContainer);
+                assertServiceFound(deviceContainer.getCachedService(serviceUUID));
 
-        CachedCharacteristic characteristic = deviceContainer.getCachedService(serviceUUID).getCachedCharacteristic(characteristicUUID);
-        assertServiceFound(characteristic);
-        return characteristic.getDescriptors();
+                CachedCharacteristic characteristic = deviceContainer.getCachedService(serviceUUID).getCachedCharacteristic(characteristicUUID);
+                assertServiceFound(characteristic);
+                return characteristic.getDescriptors();
+            }
+        });
     }
 
     @Override
-    public List<Descriptor> descriptorsForService(int serviceIdentifier, String characteristicUUID) throws BleError {
+    public List<Descriptor> descriptorsForService(final int serviceIdentifier, final String characteristicUUID) throws BleError {
         Log.i(TAG, "descriptorsForService called");
+        return eventLoop.submitAndWait(new AdapterEventLoop.Call<List<Descriptor>>() {
+            @Override
+            public List<Descriptor> call() throws BleError {
+                DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(serviceIdentifier);
 
-        DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(serviceIdentifier);
-
-        gattAccessAsserts(deviceContainer);
-        assertServiceFound(deviceContainer.getCachedService(serviceIdentifier));
+                gattAccessAsserts(deviceContainer);
+                assertServiceFound(deviceContainer.getCachedService(serviceIdentifier));
 
-        CachedCharacteristic characteristic = deviceContainer.getCachedService(serviceIdentifier).getCachedCharacteristic(characteristicUUID);
-        assertServiceFound(characteristic);
+                CachedCharacteristic characteristic = deviceContainer.getCachedService(serviceIdentifier).getCachedCharacteristic(characteristicUUID);
+                assertServiceFound(characteristic);
 
-        return characteristic.getDescriptors();
+                return characteristic.getDescriptors();
+            }
+        });
     }
 
     @Override
-    public List<Descriptor> descriptorsForCharacteristic(int characteristicIdentifier) throws BleError {
+    public List<Descriptor> descriptorsForCharacteristic(final int characteristicIdentifier) throws BleError {
         Log.i(TAG, "descriptorsForCharacteristic called");
+        return eventLoop.submitAndWait(new AdapterEventLoop.Call<List<Descriptor>>() {
+            @Override
+            public List<Descriptor> call() throws BleError {
+                DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(characteristicIdentifier);
 
-        DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(characteristicIdentifier);
-
-        gattAccessAsserts(deviceContainer);
+                gattAccessAsserts(deviceContainer);
 
-        CachedCharacteristic characteristic = deviceContainer.getCachedCharacteristic(characteristicIdentifier);
-        assertServiceFound(characteristic);
+                CachedCharacteristic characteristic = deviceContainer.getCachedCharacteristic(characteristicIdentifier);
+                assertServiceFound(characteristic);
 
-        return characteristic.getDescriptors();
+                return characteristic.getDescriptors();
+            }
+        });
     }
 
     private void gattAccessAsserts(DeviceContainer deviceContainer) throws BleError {
@@ -377,7 +711,7 @@ public class SimulatedAdapter implements BleAdapter {
     }
 
     private void assertDiscoveryDone(DeviceContainer deviceContainer) throws BleError {
-        if (deviceContainer.getServices().isEmpty()) {
+        if (!deviceContainer.isDiscoveryDone()) {
             throw new BleError(BleErrorCode.ServicesNotDiscovered, "Discovery not done on this device", UNUSED_ANDROID_ERROR_CODE);
         }
     }
@@ -395,264 +729,624 @@ public class SimulatedAdapter implements BleAdapter {
     }
 
     @Override
-    public void readCharacteristicForDevice(String deviceIdentifier,
-                                            String serviceUUID,
-                                            String characteristicUUID,
-                                            String transactionId,
-                                            OnSuccessCallback<Characteristic> onSuccessCallback,
-                                            OnErrorCallback onErrorCallback) {
+    public void readCharacteristicForDevice(final String deviceIdentifier,
+                                            final String serviceUUID,
+                                            final String characteristicUUID,
+                                            final String transactionId,
+                                            final OnSuccessCallback<Characteristic> onSuccessCallback,
+                                            final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "readCharacteristicForDevice called");
-        bridge.readCharacteristicForDevice(deviceIdentifier, serviceUUID, characteristicUUID, transactionId, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Characteristic> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                if (readFromValueCache(findCachedCharacteristic(deviceIdentifier, serviceUUID, characteristicUUID), dispatchedOnSuccessCallback)) {
+                    return;
+                }
+                bridge.readCharacteristicForDevice(deviceIdentifier, serviceUUID, characteristicUUID, transactionId,
+                        updatingValueCache(dispatchedOnSuccessCallback), dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
-    public void readCharacteristicForService(int serviceIdentifier,
-                                             String characteristicUUID,
-                                             String transactionId,
-                                             OnSuccessCallback<Characteristic> onSuccessCallback,
-                                             OnErrorCallback onErrorCallback) {
+    public void readCharacteristicForService(final int serviceIdentifier,
+                                             final String characteristicUUID,
+                                             final String transactionId,
+                                             final OnSuccessCallback<Characteristic> onSuccessCallback,
+                                             final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "readCharacteristicForService called");
-        bridge.readCharacteristicForService(serviceIdentifier, characteristicUUID, transactionId, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Characteristic> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(serviceIdentifier), onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(serviceIdentifier), onErrorCallback);
+                if (readFromValueCache(findCachedCharacteristic(serviceIdentifier, characteristicUUID), dispatchedOnSuccessCallback)) {
+                    return;
+                }
+                bridge.readCharacteristicForService(serviceIdentifier, characteristicUUID, transactionId,
+                        updatingValueCache(dispatchedOnSuccessCallback), dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
-    public void readCharacteristic(int characteristicIdentifer,
-                                   String transactionId,
-                                   OnSuccessCallback<Characteristic> onSuccessCallback,
-                                   OnErrorCallback onErrorCallback) {
+    public void readCharacteristic(final int characteristicIdentifer,
+                                   final String transactionId,
+                                   final OnSuccessCallback<Characteristic> onSuccessCallback,
+                                   final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "readCharacteristic called");
-        bridge.readCharacteristic(characteristicIdentifer, transactionId, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Characteristic> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(characteristicIdentifer), onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(characteristicIdentifer), onErrorCallback);
+                if (readFromValueCache(findCachedCharacteristic(characteristicIdentifer), dispatchedOnSuccessCallback)) {
+                    return;
+                }
+                bridge.readCharacteristic(characteristicIdentifer, transactionId, updatingValueCache(dispatchedOnSuccessCallback), dispatchedOnErrorCallback);
+            }
+        });
+    }
+
+    @Nullable
+    public String deviceKeyForTransaction(String transactionId) {
+        return monitoredDeviceKeys.get(transactionId);
+    }
+
+    //safe to call from any thread, the GATT id index is concurrent
+    @Nullable
+    public String deviceKeyForGattId(int gattId) {
+        DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(gattId);
+        return deviceContainer != null ? deviceContainer.getDevice().getId() : null;
+    }
+
+    private CachedCharacteristic findCachedCharacteristic(String deviceIdentifier, String serviceUUID, String characteristicUUID) {
+        DeviceContainer deviceContainer = deviceManager.getDeviceContainer(deviceIdentifier);
+        CachedService service = deviceContainer != null ? deviceContainer.getCachedService(serviceUUID) : null;
+        return service != null ? service.getCachedCharacteristic(characteristicUUID) : null;
+    }
+
+    private CachedCharacteristic findCachedCharacteristic(int serviceIdentifier, String characteristicUUID) {
+        DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(serviceIdentifier);
+        CachedService service = deviceContainer != null ? deviceContainer.getCachedService(serviceIdentifier) : null;
+        return service != null ? service.getCachedCharacteristic(characteristicUUID) : null;
+    }
+
+    private CachedCharacteristic findCachedCharacteristic(int characteristicIdentifier) {
+        DeviceContainer deviceContainer = deviceManager.getDeviceContainerForGattId(characteristicIdentifier);
+        return deviceContainer != null ? deviceContainer.getCachedCharacteristic(characteristicIdentifier) : null;
+    }
+
+    private boolean readFromValueCache(CachedCharacteristic cachedCharacteristic, OnSuccessCallback<Characteristic> onSuccessCallback) {
+        if (cachedCharacteristic == null || !adapterState.equals(Constants.BluetoothState.POWERED_ON)) {
+            return false;
+        }
+        if ((cachedCharacteristic.getProperties() & BluetoothGattCharacteristic.PROPERTY_READ) == 0) {
+            return false;
+        }
+        long ttlMillis = valueCacheSettings.getTtlMillis(cachedCharacteristic.getUuid());
+        if (ttlMillis == ValueCacheSettings.CACHE_DISABLED) {
+            return false;
+        }
+        byte[] value = cachedCharacteristic.getCachedValue(SystemClock.elapsedRealtime(), ttlMillis);
+        if (value == null) {
+            return false;
+        }
+
+        Characteristic characteristic = cachedCharacteristic.getCharacteristic();
+        characteristic.setValue(value);
+        onSuccessCallback.onSuccess(characteristic);
+        return true;
+    }
+
+    private OnSuccessCallback<Characteristic> updatingValueCache(final OnSuccessCallback<Characteristic> onSuccessCallback) {
+        return onEventLoop(new OnSuccessCallback<Characteristic>() {
+            @Override
+            public void onSuccess(Characteristic data) {
+                updateValueCache(data);
+                if (onSuccessCallback != null) {
+                    onSuccessCallback.onSuccess(data);
+                }
+            }
+        });
+    }
+
+    private <T> OnSuccessCallback<T> onEventLoop(final OnSuccessCallback<T> onSuccessCallback) {
+        return new OnSuccessCallback<T>() {
+            @Override
+            public void onSuccess(final T data) {
+                eventLoop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onSuccessCallback.onSuccess(data);
+                    }
+                });
+            }
+        };
+    }
+
+    private OnErrorCallback onEventLoop(final OnErrorCallback onErrorCallback) {
+        return new OnErrorCallback() {
+            @Override
+            public void onError(final BleError error) {
+                eventLoop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onErrorCallback.onError(error);
+                    }
+                });
+            }
+        };
+    }
+
+    private void updateValueCache(Characteristic characteristic) {
+        if (valueCacheSettings.getTtlMillis(characteristic.getUuid()) == ValueCacheSettings.CACHE_DISABLED) {
+            return;
+        }
+        CachedCharacteristic cachedCharacteristic = findCachedCharacteristic(characteristic.getId());
+        if (cachedCharacteristic != null) {
+            cachedCharacteristic.updateCachedValue(characteristic.getValue(), SystemClock.elapsedRealtime());
+        }
     }
 
     @Override
-    public void writeCharacteristicForDevice(String deviceIdentifier,
-                                             String serviceUUID,
-                                             String characteristicUUID,
-                                             String valueBase64,
-                                             boolean withResponse,
-                                             String transactionId,
-                                             OnSuccessCallback<Characteristic> onSuccessCallback,
-                                             OnErrorCallback onErrorCallback) {
+    public void writeCharacteristicForDevice(final String deviceIdentifier,
+                                             final String serviceUUID,
+                                             final String characteristicUUID,
+                                             final String valueBase64,
+                                             final boolean withResponse,
+                                             final String transactionId,
+                                             final OnSuccessCallback<Characteristic> onSuccessCallback,
+                                             final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "writeCharacteristicForDevice called");
-        bridge.writeCharacteristicForDevice(
-                deviceIdentifier,
-                serviceUUID,
-                characteristicUUID,
-                valueBase64,
-                withResponse,
-                transactionId,
-                onSuccessCallback,
-                onErrorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                submitWrite(
+                        findCachedCharacteristic(deviceIdentifier, serviceUUID, characteristicUUID),
+                        valueBase64,
+                        withResponse,
+                        onSuccessCallback,
+                        onErrorCallback,
+                        new WriteSender() {
+                            @Override
+                            public void send(OnSuccessCallback<Characteristic> onSuccessCallback, OnErrorCallback onErrorCallback) {
+                                bridge.writeCharacteristicForDevice(
+                                        deviceIdentifier,
+                                        serviceUUID,
+                                        characteristicUUID,
+                                        valueBase64,
+                                        withResponse,
+                                        transactionId,
+                                        onSuccessCallback,
+                                        onErrorCallback
+                                );
+                            }
+                        }
+                );
+            }
+        });
     }
 
     @Override
-    public void writeCharacteristicForService(int serviceIdentifier,
-                                              String characteristicUUID,
-                                              String valueBase64,
-                                              boolean withResponse,
-                                              String transactionId,
-                                              OnSuccessCallback<Characteristic> onSuccessCallback,
-                                              OnErrorCallback onErrorCallback) {
+    public void writeCharacteristicForService(final int serviceIdentifier,
+                                              final String characteristicUUID,
+                                              final String valueBase64,
+                                              final boolean withResponse,
+                                              final String transactionId,
+                                              final OnSuccessCallback<Characteristic> onSuccessCallback,
+                                              final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "writeCharacteristicForService called");
-        bridge.writeCharacteristicForService(
-                serviceIdentifier,
-                characteristicUUID,
-                valueBase64,
-                withResponse,
-                transactionId,
-                onSuccessCallback,
-                onErrorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                submitWrite(
+                        findCachedCharacteristic(serviceIdentifier, characteristicUUID),
+                        valueBase64,
+                        withResponse,
+                        onSuccessCallback,
+                        onErrorCallback,
+                        new WriteSender() {
+                            @Override
+                            public void send(OnSuccessCallback<Characteristic> onSuccessCallback, OnErrorCallback onErrorCallback) {
+                                bridge.writeCharacteristicForService(
+                                        serviceIdentifier,
+                                        characteristicUUID,
+                                        valueBase64,
+                                        withResponse,
+                                        transactionId,
+                                        onSuccessCallback,
+                                        onErrorCallback
+                                );
+                            }
+                        }
+                );
+            }
+        });
     }
 
     @Override
-    public void writeCharacteristic(int characteristicIdentifier,
-                                    String valueBase64,
-                                    boolean withResponse,
-                                    String transactionId,
-                                    OnSuccessCallback<Characteristic> onSuccessCallback,
-                                    OnErrorCallback onErrorCallback) {
+    public void writeCharacteristic(final int characteristicIdentifier,
+                                    final String valueBase64,
+                                    final boolean withResponse,
+                                    final String transactionId,
+                                    final OnSuccessCallback<Characteristic> onSuccessCallback,
+                                    final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "writeCharacteristic called");
-        bridge.writeCharacteristic(
-                characteristicIdentifier,
-                valueBase64,
-                withResponse,
-                transactionId,
-                onSuccessCallback,
-                onErrorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                submitWrite(
+                        findCachedCharacteristic(characteristicIdentifier),
+                        valueBase64,
+                        withResponse,
+                        onSuccessCallback,
+                        onErrorCallback,
+                        new WriteSender() {
+                            @Override
+                            public void send(OnSuccessCallback<Characteristic> onSuccessCallback, OnErrorCallback onErrorCallback) {
+                                bridge.writeCharacteristic(
+                                        characteristicIdentifier,
+                                        valueBase64,
+                                        withResponse,
+                                        transactionId,
+                                        onSuccessCallback,
+                                        onErrorCallback
+                                );
+                            }
+                        }
+                );
+            }
+        });
+    }
+
+    private void submitWrite(CachedCharacteristic cachedCharacteristic,
+                             String valueBase64,
+                             boolean withResponse,
+                             OnSuccessCallback<Characteristic> onSuccessCallback,
+                             OnErrorCallback onErrorCallback,
+                             final WriteSender writeSender) {
+        String deviceIdentifier = cachedCharacteristic != null ? cachedCharacteristic.getDeviceId() : null;
+        final OnSuccessCallback<Characteristic> successCallback =
+                updatingValueCache(callbackDispatcher.dispatchingSuccess(deviceIdentifier, onSuccessCallback));
+        final OnErrorCallback errorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+        WritePipeline writePipeline = deviceIdentifier != null ? getWritePipeline(deviceIdentifier) : null;
+
+        if (writePipeline != null && !withResponse && canAcknowledgeLocally(cachedCharacteristic)) {
+            final Characteristic writtenCharacteristic = cachedCharacteristic.getCharacteristic();
+            writtenCharacteristic.setValue(ValueParser.parse(valueBase64));
+            writePipeline.submitWithoutResponse(new WritePipeline.Write() {
+                @Override
+                public void acknowledge() {
+                    successCallback.onSuccess(writtenCharacteristic);
+                }
+
+                @Override
+                public void start(Runnable onCompleted) {
+                    //already acknowledged, so nothing waits for JS and the credit frees up once the write is sent
+                    writeSender.send(null, null);
+                    onCompleted.run();
+                }
+            });
+        } else if (writePipeline != null && withResponse) {
+            writePipeline.submitWithResponse(new WritePipeline.Write() {
+                @Override
+                public void acknowledge() {
+                    //acknowledged by the peripheral
+                }
+
+                @Override
+                public void start(final Runnable onCompleted) {
+                    writeSender.send(
+                            new OnSuccessCallback<Characteristic>() {
+                                @Override
+                                public void onSuccess(Characteristic data) {
+                                    onCompleted.run();
+                                    successCallback.onSuccess(data);
+                                }
+                            },
+                            new OnErrorCallback() {
+                                @Override
+                                public void onError(BleError error) {
+                                    onCompleted.run();
+                                    errorCallback.onError(error);
+                                }
+                            });
+                }
+            });
+        } else {
+            writeSender.send(successCallback, errorCallback);
+        }
+    }
+
+    private boolean canAcknowledgeLocally(CachedCharacteristic cachedCharacteristic) {
+        int properties = cachedCharacteristic.getProperties();
+        return writePipelineSettings.getWriteWithoutResponseCredits() != WritePipelineSettings.LOCAL_ACKNOWLEDGEMENT_DISABLED
+                && (properties & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0
+                && adapterState.equals(Constants.BluetoothState.POWERED_ON);
+    }
+
+    private WritePipeline getWritePipeline(String deviceIdentifier) {
+        WritePipeline writePipeline = writePipelines.get(deviceIdentifier);
+        if (writePipeline == null) {
+            writePipeline = new WritePipeline(
+                    bridge.getMethodCallExecutor(),
+                    writePipelineSettings.getWriteWithoutResponseCredits(),
+                    writePipelineSettings.getWriteWithResponseWindow());
+            writePipelines.put(deviceIdentifier, writePipeline);
+        }
+        return writePipeline;
+    }
+
+    private void removeWritePipeline(String deviceIdentifier) {
+        writePipelines.remove(deviceIdentifier);
+    }
+
+    private interface WriteSender {
+        void send(OnSuccessCallback<Characteristic> onSuccessCallback, OnErrorCallback onErrorCallback);
     }
 
     @Override
-    public void monitorCharacteristicForDevice(String deviceIdentifier,
-                                               String serviceUUID,
-                                               String characteristicUUID,
-                                               String transactionId,
-                                               OnEventCallback<Characteristic> onEventCallback,
-                                               OnErrorCallback onErrorCallback) {
+    public void monitorCharacteristicForDevice(final String deviceIdentifier,
+                                               final String serviceUUID,
+                                               final String characteristicUUID,
+                                               final String transactionId,
+                                               final OnEventCallback<Characteristic> onEventCallback,
+                                               final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "monitorCharacteristicForDevice called");
-        handleNewMonitoringTransaction(onEventCallback, onErrorCallback, transactionId);
-        bridge.monitorCharacteristicForDevice(deviceIdentifier, serviceUUID, characteristicUUID, transactionId);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnEventCallback<Characteristic> dispatchedOnEventCallback = callbackDispatcher.dispatchingEvent(deviceIdentifier, onEventCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceIdentifier, onErrorCallback);
+                handleNewMonitoringTransaction(dispatchedOnEventCallback, dispatchedOnErrorCallback, transactionId, deviceIdentifier);
+                bridge.monitorCharacteristicForDevice(deviceIdentifier, serviceUUID, characteristicUUID, transactionId);
+            }
+        });
     }
 
     @Override
-    public void monitorCharacteristicForService(int serviceIdentifier,
-                                                String characteristicUUID,
-                                                String transactionId,
-                                                OnEventCallback<Characteristic> onEventCallback,
-                                                OnErrorCallback onErrorCallback) {
+    public void monitorCharacteristicForService(final int serviceIdentifier,
+                                                final String characteristicUUID,
+                                                final String transactionId,
+                                                final OnEventCallback<Characteristic> onEventCallback,
+                                                final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "monitorCharacteristicForService called");
-        handleNewMonitoringTransaction(onEventCallback, onErrorCallback, transactionId);
-        bridge.monitorCharacteristicForService(serviceIdentifier, characteristicUUID, transactionId);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnEventCallback<Characteristic> dispatchedOnEventCallback = callbackDispatcher.dispatchingEvent(deviceKeyForGattId(serviceIdentifier), onEventCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(serviceIdentifier), onErrorCallback);
+                handleNewMonitoringTransaction(dispatchedOnEventCallback, dispatchedOnErrorCallback, transactionId, deviceKeyForGattId(serviceIdentifier));
+                bridge.monitorCharacteristicForService(serviceIdentifier, characteristicUUID, transactionId);
+            }
+        });
     }
 
     @Override
-    public void monitorCharacteristic(int characteristicIdentifier,
-                                      String transactionId,
-                                      OnEventCallback<Characteristic> onEventCallback,
-                                      OnErrorCallback onErrorCallback) {
+    public void monitorCharacteristic(final int characteristicIdentifier,
+                                      final String transactionId,
+                                      final OnEventCallback<Characteristic> onEventCallback,
+                                      final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "monitorCharacteristic called");
-        handleNewMonitoringTransaction(onEventCallback, onErrorCallback, transactionId);
-        bridge.monitorCharacteristic(characteristicIdentifier, transactionId);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnEventCallback<Characteristic> dispatchedOnEventCallback = callbackDispatcher.dispatchingEvent(deviceKeyForGattId(characteristicIdentifier), onEventCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(characteristicIdentifier), onErrorCallback);
+                handleNewMonitoringTransaction(dispatchedOnEventCallback, dispatchedOnErrorCallback, transactionId, deviceKeyForGattId(characteristicIdentifier));
+                bridge.monitorCharacteristic(characteristicIdentifier, transactionId);
+            }
+        });
     }
 
-    private void handleNewMonitoringTransaction(OnEventCallback<Characteristic> onEventCallback, OnErrorCallback onErrorCallback, String transactionId) {
+    private void handleNewMonitoringTransaction(OnEventCallback<Characteristic> onEventCallback,
+                                                OnErrorCallback onErrorCallback,
+                                                String transactionId,
+                                                @Nullable String deviceKey) {
         if (monitoringCallbacks.containsKey(transactionId)) {
             Log.w(TAG, "Monitoring called reusing existing transactionId");
             monitoringCallbacks.get(transactionId).getOnErrorCallback().onError(BleErrorUtils.cancelled());
         }
         monitoringCallbacks.put(transactionId, new CallbackContainer<>(onEventCallback, onErrorCallback));
+        if (deviceKey != null) {
+            monitoredDeviceKeys.put(transactionId, deviceKey);
+        } else {
+            monitoredDeviceKeys.remove(transactionId);
+        }
     }
 
     @Override
-    public void readDescriptorForDevice(String deviceId,
-                                        String serviceUUID,
-                                        String characteristicUUID,
-                                        String descriptorUUID,
-                                        String transactionId,
-                                        OnSuccessCallback<Descriptor> successCallback,
-                                        OnErrorCallback errorCallback) {
+    public void readDescriptorForDevice(final String deviceId,
+                                        final String serviceUUID,
+                                        final String characteristicUUID,
+                                        final String descriptorUUID,
+                                        final String transactionId,
+                                        final OnSuccessCallback<Descriptor> successCallback,
+                                        final OnErrorCallback errorCallback) {
         Log.i(TAG, "readDescriptorForDevice called");
-        bridge.readDescriptorForDevice(deviceId, serviceUUID,
-                characteristicUUID, descriptorUUID, transactionId, successCallback, errorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceId, successCallback);
+                OnErrorCallback dispatchedErrorCallback = callbackDispatcher.dispatchingError(deviceId, errorCallback);
+                bridge.readDescriptorForDevice(deviceId, serviceUUID,
+                        characteristicUUID, descriptorUUID, transactionId, dispatchedSuccessCallback, dispatchedErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void readDescriptorForService(int serviceIdentifier,
-                                         String characteristicUUID,
-                                         String descriptorUUID,
-                                         String transactionId,
-                                         OnSuccessCallback<Descriptor> successCallback,
-                                         OnErrorCallback errorCallback) {
+    public void readDescriptorForService(final int serviceIdentifier,
+                                         final String characteristicUUID,
+                                         final String descriptorUUID,
+                                         final String transactionId,
+                                         final OnSuccessCallback<Descriptor> successCallback,
+                                         final OnErrorCallback errorCallback) {
         Log.i(TAG, "readDescriptorForService called");
-        bridge.readDescriptorForService(serviceIdentifier,
-                characteristicUUID, descriptorUUID, transactionId, successCallback, errorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(serviceIdentifier), successCallback);
+                OnErrorCallback dispatchedErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(serviceIdentifier), errorCallback);
+                bridge.readDescriptorForService(serviceIdentifier,
+                        characteristicUUID, descriptorUUID, transactionId, dispatchedSuccessCallback, dispatchedErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void readDescriptorForCharacteristic(int characteristicIdentifier,
-                                                String descriptorUUID,
-                                                String transactionId,
-                                                OnSuccessCallback<Descriptor> successCallback,
-                                                OnErrorCallback errorCallback) {
+    public void readDescriptorForCharacteristic(final int characteristicIdentifier,
+                                                final String descriptorUUID,
+                                                final String transactionId,
+                                                final OnSuccessCallback<Descriptor> successCallback,
+                                                final OnErrorCallback errorCallback) {
         Log.i(TAG, "readDescriptorForCharacteristic called");
-        bridge.readDescriptorForCharacteristic(characteristicIdentifier,
-                descriptorUUID, transactionId, successCallback, errorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(characteristicIdentifier), successCallback);
+                OnErrorCallback dispatchedErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(characteristicIdentifier), errorCallback);
+                bridge.readDescriptorForCharacteristic(characteristicIdentifier,
+                        descriptorUUID, transactionId, dispatchedSuccessCallback, dispatchedErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void readDescriptor(int descriptorIdentifier,
-                               String transactionId,
-                               OnSuccessCallback<Descriptor> onSuccessCallback,
-                               OnErrorCallback onErrorCallback) {
+    public void readDescriptor(final int descriptorIdentifier,
+                               final String transactionId,
+                               final OnSuccessCallback<Descriptor> onSuccessCallback,
+                               final OnErrorCallback onErrorCallback) {
         Log.i(TAG, "readDescriptor called");
-        bridge.readDescriptor(descriptorIdentifier, transactionId, onSuccessCallback, onErrorCallback);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedOnSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(descriptorIdentifier), onSuccessCallback);
+                OnErrorCallback dispatchedOnErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(descriptorIdentifier), onErrorCallback);
+                bridge.readDescriptor(descriptorIdentifier, transactionId, dispatchedOnSuccessCallback, dispatchedOnErrorCallback);
+            }
+        });
     }
 
     @Override
-    public void writeDescriptorForDevice(String deviceId,
-                                         String serviceUUID,
-                                         String characteristicUUID,
-                                         String descriptorUUID,
-                                         String valueBase64,
-                                         String transactionId,
-                                         OnSuccessCallback<Descriptor> successCallback,
-                                         OnErrorCallback errorCallback) {
+    public void writeDescriptorForDevice(final String deviceId,
+                                         final String serviceUUID,
+                                         final String characteristicUUID,
+                                         final String descriptorUUID,
+                                         final String valueBase64,
+                                         final String transactionId,
+                                         final OnSuccessCallback<Descriptor> successCallback,
+                                         final OnErrorCallback errorCallback) {
         Log.i(TAG, "writeDescriptorForDevice called");
-        bridge.writeDescriptorForDevice(
-                deviceId,
-                serviceUUID,
-                characteristicUUID,
-                descriptorUUID,
-                valueBase64,
-                transactionId,
-                successCallback,
-                errorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceId, successCallback);
+                OnErrorCallback dispatchedErrorCallback = callbackDispatcher.dispatchingError(deviceId, errorCallback);
+                bridge.writeDescriptorForDevice(
+                        deviceId,
+                        serviceUUID,
+                        characteristicUUID,
+                        descriptorUUID,
+                        valueBase64,
+                        transactionId,
+                        dispatchedSuccessCallback,
+                        dispatchedErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void writeDescriptorForService(int serviceIdentifier,
-                                          String characteristicUUID,
-                                          String descriptorUUID,
-                                          String valueBase64,
-                                          String transactionId,
-                                          OnSuccessCallback<Descriptor> successCallback,
-                                          OnErrorCallback errorCallback) {
+    public void writeDescriptorForService(final int serviceIdentifier,
+                                          final String characteristicUUID,
+                                          final String descriptorUUID,
+                                          final String valueBase64,
+                                          final String transactionId,
+                                          final OnSuccessCallback<Descriptor> successCallback,
+                                          final OnErrorCallback errorCallback) {
         Log.i(TAG, "writeDescriptorForService called");
-        bridge.writeDescriptorForService(
-                serviceIdentifier,
-                characteristicUUID,
-                descriptorUUID,
-                valueBase64,
-                transactionId,
-                successCallback,
-                errorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(serviceIdentifier), successCallback);
+                OnErrorCallback dispatchedErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(serviceIdentifier), errorCallback);
+                bridge.writeDescriptorForService(
+                        serviceIdentifier,
+                        characteristicUUID,
+                        descriptorUUID,
+                        valueBase64,
+                        transactionId,
+                        dispatchedSuccessCallback,
+                        dispatchedErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void writeDescriptorForCharacteristic(int characteristicIdentifier,
-                                                 String descriptorUUID,
-                                                 String valueBase64,
-                                                 String transactionId,
-                                                 OnSuccessCallback<Descriptor> successCallback,
-                                                 OnErrorCallback errorCallback) {
+    public void writeDescriptorForCharacteristic(final int characteristicIdentifier,
+                                                 final String descriptorUUID,
+                                                 final String valueBase64,
+                                                 final String transactionId,
+                                                 final OnSuccessCallback<Descriptor> successCallback,
+                                                 final OnErrorCallback errorCallback) {
         Log.i(TAG, "writeDescriptorForCharacteristic called");
-        bridge.writeDescriptorForCharacteristic(
-                characteristicIdentifier,
-                descriptorUUID,
-                valueBase64,
-                transactionId,
-                successCallback,
-                errorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(characteristicIdentifier), successCallback);
+                OnErrorCallback dispatchedErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(characteristicIdentifier), errorCallback);
+                bridge.writeDescriptorForCharacteristic(
+                        characteristicIdentifier,
+                        descriptorUUID,
+                        valueBase64,
+                        transactionId,
+                        dispatchedSuccessCallback,
+                        dispatchedErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void writeDescriptor(int descriptorIdentifier,
-                                String valueBase64,
-                                String transactionId,
-                                OnSuccessCallback<Descriptor> successCallback,
-                                OnErrorCallback errorCallback) {
+    public void writeDescriptor(final int descriptorIdentifier,
+                                final String valueBase64,
+                                final String transactionId,
+                                final OnSuccessCallback<Descriptor> successCallback,
+                                final OnErrorCallback errorCallback) {
         Log.i(TAG, "writeDescriptor called");
-        bridge.writeDescriptor(
-                descriptorIdentifier,
-                valueBase64,
-                transactionId,
-                successCallback,
-                errorCallback
-        );
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                OnSuccessCallback<Descriptor> dispatchedSuccessCallback = callbackDispatcher.dispatchingSuccess(deviceKeyForGattId(descriptorIdentifier), successCallback);
+                OnErrorCallback dispatchedErrorCallback = callbackDispatcher.dispatchingError(deviceKeyForGattId(descriptorIdentifier), errorCallback);
+                bridge.writeDescriptor(
+                        descriptorIdentifier,
+                        valueBase64,
+                        transactionId,
+                        dispatchedSuccessCallback,
+                        dispatchedErrorCallback
+                );
+            }
+        });
     }
 
     @Override
-    public void cancelTransaction(String transactionId) {
+    public void cancelTransaction(final String transactionId) {
         Log.i(TAG, "cancelTransaction called");
-        bridge.cancelTransaction(transactionId);
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                bridge.cancelTransaction(transactionId);
+            }
+        });
     }
 
     @Override
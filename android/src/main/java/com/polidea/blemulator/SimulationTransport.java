@@ -0,0 +1,195 @@
+package com.polidea.blemulator;
+
+import com.polidea.blemulator.containers.DiscoveredGatts;
+import com.polidea.blemulator.containers.GattTable;
+import com.polidea.multiplatformbleadapter.Characteristic;
+import com.polidea.multiplatformbleadapter.ConnectionOptions;
+import com.polidea.multiplatformbleadapter.Descriptor;
+import com.polidea.multiplatformbleadapter.Device;
+import com.polidea.multiplatformbleadapter.OnErrorCallback;
+import com.polidea.multiplatformbleadapter.OnSuccessCallback;
+
+import java.util.concurrent.Executor;
+
+import androidx.annotation.Nullable;
+
+public interface SimulationTransport {
+    Executor getMethodCallExecutor();
+
+    void createClient();
+
+    void destroyClient();
+
+    void enable(String transactionId, OnSuccessCallback<Void> successCallback, OnErrorCallback errorCallback);
+
+    void disable(String transactionId, OnSuccessCallback<Void> successCallback, OnErrorCallback errorCallback);
+
+    void startScan(String[] filteredUUIDs,
+                   int scanMode,
+                   int callbackType,
+                   OnErrorCallback onErrorCallback);
+
+    void stopScan();
+
+    void getKnownDevices(String[] deviceIdentifiers,
+                         OnSuccessCallback<Device[]> onSuccessCallback,
+                         OnErrorCallback onErrorCallback);
+
+    void getConnectedDevices(String[] serviceUUIDs,
+                             OnSuccessCallback<Device[]> onSuccessCallback,
+                             OnErrorCallback onErrorCallback);
+
+    void connect(String deviceIdentifier,
+                 ConnectionOptions connectionOptions,
+                 OnSuccessCallback<Device> onSuccessCallback,
+                 OnErrorCallback onErrorCallback);
+
+    void cancelDeviceConnection(String deviceIdentifier,
+                                OnSuccessCallback<Device> onSuccessCallback,
+                                OnErrorCallback onErrorCallback);
+
+    void isDeviceConnected(String deviceIdentifier,
+                           OnSuccessCallback<Boolean> onSuccessCallback,
+                           OnErrorCallback onErrorCallback);
+
+    void readRSSIForDevice(String deviceIdentifier,
+                           String transactionId,
+                           OnSuccessCallback<Device> onSuccessCallback,
+                           OnErrorCallback onErrorCallback);
+
+    void requestConnectionPriorityForDevice(String deviceIdentifier,
+                                            int connectionPriority,
+                                            String transactionId,
+                                            OnSuccessCallback<Device> onSuccessCallback,
+                                            OnErrorCallback onErrorCallback);
+
+    void requestMtu(String deviceIdentifier,
+                    int mtu,
+                    String transactionId,
+                    OnSuccessCallback<Integer> onSuccessCallback,
+                    OnErrorCallback onErrorCallback);
+
+    void discoverAllGatts(String deviceIdentifier,
+                          String transactionId,
+                          @Nullable String cachedDatabaseHash,
+                          OnSuccessCallback<DiscoveredGatts> onSuccessCallback,
+                          OnErrorCallback onErrorCallback);
+
+    void discoverGattsInRange(String deviceIdentifier,
+                              int startHandle,
+                              int endHandle,
+                              OnSuccessCallback<GattTable> onSuccessCallback,
+                              OnErrorCallback onErrorCallback);
+
+    void readCharacteristicForDevice(String deviceIdentifier,
+                                     String serviceUUID,
+                                     String characteristicUUID,
+                                     String transactionId,
+                                     OnSuccessCallback<Characteristic> onSuccessCallback,
+                                     OnErrorCallback onErrorCallback);
+
+    void readCharacteristicForService(int serviceIdentifier,
+                                      String characteristicUUID,
+                                      String transactionId,
+                                      OnSuccessCallback<Characteristic> onSuccessCallback,
+                                      OnErrorCallback onErrorCallback);
+
+    void readCharacteristic(int characteristicIdentifier,
+                            String transactionId,
+                            OnSuccessCallback<Characteristic> onSuccessCallback,
+                            OnErrorCallback onErrorCallback);
+
+    void writeCharacteristicForDevice(String deviceIdentifier,
+                                      String serviceUUID,
+                                      String characteristicUUID,
+                                      String valueBase64,
+                                      boolean withResponse,
+                                      String transactionId,
+                                      @Nullable OnSuccessCallback<Characteristic> onSuccessCallback,
+                                      @Nullable OnErrorCallback onErrorCallback);
+
+    void writeCharacteristicForService(int serviceIdentifier,
+                                       String characteristicUUID,
+                                       String valueBase64,
+                                       boolean withResponse,
+                                       String transactionId,
+                                       @Nullable OnSuccessCallback<Characteristic> onSuccessCallback,
+                                       @Nullable OnErrorCallback onErrorCallback);
+
+    void writeCharacteristic(int characteristicIdentifier,
+                             String valueBase64,
+                             boolean withResponse,
+                             String transactionId,
+                             @Nullable OnSuccessCallback<Characteristic> onSuccessCallback,
+                             @Nullable OnErrorCallback onErrorCallback);
+
+    void monitorCharacteristicForDevice(String deviceIdentifier,
+                                        String serviceUUID,
+                                        String characteristicUUID,
+                                        String transactionId);
+
+    void monitorCharacteristicForService(int serviceIdentifier,
+                                         String characteristicUUID,
+                                         String transactionId);
+
+    void monitorCharacteristic(int characteristicIdentifier,
+                               String transactionId);
+
+    void readDescriptorForDevice(String deviceId,
+                                 String serviceUUID,
+                                 String characteristicUUID,
+                                 String descriptorUUID,
+                                 String transactionId,
+                                 OnSuccessCallback<Descriptor> successCallback,
+                                 OnErrorCallback errorCallback);
+
+    void readDescriptorForService(int serviceIdentifier,
+                                  String characteristicUUID,
+                                  String descriptorUUID,
+                                  String transactionId,
+                                  OnSuccessCallback<Descriptor> successCallback,
+                                  OnErrorCallback errorCallback);
+
+    void readDescriptorForCharacteristic(int characteristicIdentifier,
+                                         String descriptorUUID,
+                                         String transactionId,
+                                         OnSuccessCallback<Descriptor> successCallback,
+                                         OnErrorCallback errorCallback);
+
+    void readDescriptor(int descriptorIdentifier,
+                        String transactionId,
+                        OnSuccessCallback<Descriptor> successCallback,
+                        OnErrorCallback errorCallback);
+
+    void writeDescriptorForDevice(String deviceId,
+                                  String serviceUUID,
+                                  String characteristicUUID,
+                                  String descriptorUUID,
+                                  String valueBase64,
+                                  String transactionId,
+                                  OnSuccessCallback<Descriptor> successCallback,
+                                  OnErrorCallback errorCallback);
+
+    void writeDescriptorForService(int serviceIdentifier,
+                                   String characteristicUUID,
+                                   String descriptorUUID,
+                                   String valueBase64,
+                                   String transactionId,
+                                   OnSuccessCallback<Descriptor> successCallback,
+                                   OnErrorCallback errorCallback);
+
+    void writeDescriptorForCharacteristic(int characteristicIdentifier,
+                                          String descriptorUUID,
+                                          String valueBase64,
+                                          String transactionId,
+                                          OnSuccessCallback<Descriptor> successCallback,
+                                          OnErrorCallback errorCallback);
+
+    void writeDescriptor(int descriptorIdentifier,
+                         String valueBase64,
+                         String transactionId,
+                         OnSuccessCallback<Descriptor> successCallback,
+                         OnErrorCallback errorCallback);
+
+    void cancelTransaction(String transactionId);
+}
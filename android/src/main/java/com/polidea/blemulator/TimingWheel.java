@@ -0,0 +1,166 @@
+package com.polidea.blemulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class TimingWheel<T extends TimingWheel.Timeout> {
+    private final long tickMillis;
+    private final List<Bucket> buckets;
+    private final int bucketMask;
+    private final ExpirationListener<T> expirationListener;
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory("BlemulatorTimingWheel"));
+    private final ScheduledFuture<?> sweep;
+    private volatile long currentTick = 0;
+
+    public TimingWheel(long tickMillis, int bucketCount, ExpirationListener<T> expirationListener) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis has to be positive, was " + tickMillis);
+        }
+        int roundedBucketCount = Integer.highestOneBit(Math.max(bucketCount, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.bucketMask = roundedBucketCount - 1;
+        this.expirationListener = expirationListener;
+        this.buckets = new ArrayList<>(roundedBucketCount);
+        for (int i = 0; i < roundedBucketCount; i++) {
+            buckets.add(new Bucket());
+        }
+        sweep = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                advance();
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void schedule(T timeout, long delayMillis) {
+        long deadlineTick = (elapsedMillis() + delayMillis + tickMillis - 1) / tickMillis;
+        timeout.deadlineTick = deadlineTick;
+        while (true) {
+            long targetTick = Math.max(deadlineTick, currentTick + 1);
+            Bucket bucket = buckets.get((int) (targetTick & bucketMask));
+            timeout.bucket = bucket;
+            synchronized (bucket) {
+                //the sweep may have passed targetTick since currentTick was read, retry on a later bucket
+                if (bucket.lastExpiredTick < targetTick) {
+                    if (!timeout.isCancelled) {
+                        bucket.link(timeout);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    public void cancel(T timeout) {
+        timeout.isCancelled = true;
+        Bucket bucket = timeout.bucket;
+        if (bucket != null) {
+            synchronized (bucket) {
+                if (timeout.isLinked) {
+                    bucket.unlink(timeout);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Bucket bucket : buckets) {
+            synchronized (bucket) {
+                while (bucket.head != null) {
+                    bucket.unlink(bucket.head);
+                }
+            }
+        }
+    }
+
+    public void stop() {
+        sweep.cancel(false);
+        scheduler.shutdown();
+        clear();
+    }
+
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private void advance() {
+        long targetTick = elapsedMillis() / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            expireBucket(currentTick);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expireBucket(long tick) {
+        Bucket bucket = buckets.get((int) (tick & bucketMask));
+        List<T> expired = null;
+        synchronized (bucket) {
+            bucket.lastExpiredTick = tick;
+            Timeout timeout = bucket.head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.deadlineTick <= tick) {
+                    bucket.unlink(timeout);
+                    if (expired == null) {
+                        expired = new ArrayList<>();
+                    }
+                    expired.add((T) timeout);
+                }
+                timeout = next;
+            }
+        }
+        if (expired != null) {
+            for (T timeout : expired) {
+                expirationListener.onExpired(timeout);
+            }
+        }
+    }
+
+    private static class Bucket {
+        private Timeout head = null;
+        private long lastExpiredTick = 0;
+
+        void link(Timeout timeout) {
+            timeout.next = head;
+            if (head != null) {
+                head.previous = timeout;
+            }
+            head = timeout;
+            timeout.isLinked = true;
+        }
+
+        void unlink(Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.isLinked = false;
+        }
+    }
+
+    public static abstract class Timeout {
+        long deadlineTick;
+        volatile Bucket bucket = null;
+        volatile boolean isCancelled = false;
+        boolean isLinked = false;
+        Timeout previous = null;
+        Timeout next = null;
+    }
+
+    public interface ExpirationListener<T> {
+        void onExpired(T timeout);
+    }
+}
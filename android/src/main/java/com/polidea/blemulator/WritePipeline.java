@@ -0,0 +1,117 @@
+package com.polidea.blemulator;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+public class WritePipeline {
+    private final Executor transmitExecutor;
+    private final int writeWithResponseWindow;
+    private final Queue<Write> writesWaitingForCredit = new ArrayDeque<>();
+    private final Queue<Write> writesWaitingForWindow = new ArrayDeque<>();
+    private int availableCredits;
+    private int writesInFlight = 0;
+
+    public WritePipeline(Executor transmitExecutor, int writeWithoutResponseCredits, int writeWithResponseWindow) {
+        this.transmitExecutor = transmitExecutor;
+        this.availableCredits = writeWithoutResponseCredits;
+        this.writeWithResponseWindow = writeWithResponseWindow;
+    }
+
+    public void submitWithoutResponse(Write write) {
+        synchronized (this) {
+            if (availableCredits == 0) {
+                writesWaitingForCredit.add(write);
+                return;
+            }
+            availableCredits--;
+        }
+        transmitWithoutResponse(write);
+    }
+
+    public void submitWithResponse(Write write) {
+        synchronized (this) {
+            if (writeWithResponseWindow != WritePipelineSettings.UNLIMITED_WINDOW
+                    && writesInFlight >= writeWithResponseWindow) {
+                writesWaitingForWindow.add(write);
+                return;
+            }
+            writesInFlight++;
+        }
+        write.start(createWindowReleaser());
+    }
+
+    private void transmitWithoutResponse(final Write write) {
+        write.acknowledge();
+        transmitExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Runnable creditReleaser = createCreditReleaser();
+                try {
+                    write.start(creditReleaser);
+                } catch (RuntimeException e) {
+                    creditReleaser.run();
+                    throw e;
+                }
+            }
+        });
+    }
+
+    private Runnable createCreditReleaser() {
+        return new Runnable() {
+            private boolean isReleased = false;
+
+            @Override
+            public void run() {
+                synchronized (WritePipeline.this) {
+                    if (isReleased) {
+                        return;
+                    }
+                    isReleased = true;
+                }
+                releaseCredit();
+            }
+        };
+    }
+
+    private void releaseCredit() {
+        Write nextWrite;
+        synchronized (this) {
+            nextWrite = writesWaitingForCredit.poll();
+            if (nextWrite == null) {
+                availableCredits++;
+                return;
+            }
+        }
+        transmitWithoutResponse(nextWrite);
+    }
+
+    private Runnable createWindowReleaser() {
+        return new Runnable() {
+            private boolean isReleased = false;
+
+            @Override
+            public void run() {
+                Write nextWrite;
+                synchronized (WritePipeline.this) {
+                    if (isReleased) {
+                        return;
+                    }
+                    isReleased = true;
+                    nextWrite = writesWaitingForWindow.poll();
+                    if (nextWrite == null) {
+                        writesInFlight--;
+                        return;
+                    }
+                }
+                nextWrite.start(createWindowReleaser());
+            }
+        };
+    }
+
+    public interface Write {
+        void acknowledge();
+
+        void start(Runnable onCompleted);
+    }
+}
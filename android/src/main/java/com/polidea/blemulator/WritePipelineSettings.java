@@ -0,0 +1,29 @@
+package com.polidea.blemulator;
+
+public class WritePipelineSettings {
+    public static final int UNLIMITED_WINDOW = 0;
+    public static final int LOCAL_ACKNOWLEDGEMENT_DISABLED = 0;
+    public static final int DEFAULT_WRITE_WITHOUT_RESPONSE_CREDITS = LOCAL_ACKNOWLEDGEMENT_DISABLED;
+
+    private volatile int writeWithoutResponseCredits = DEFAULT_WRITE_WITHOUT_RESPONSE_CREDITS;
+    private volatile int writeWithResponseWindow = UNLIMITED_WINDOW;
+
+    public void configure(int writeWithoutResponseCredits, int writeWithResponseWindow) {
+        if (writeWithoutResponseCredits < 0) {
+            throw new IllegalArgumentException("writeWithoutResponseCredits can't be negative, was " + writeWithoutResponseCredits);
+        }
+        if (writeWithResponseWindow < 0) {
+            throw new IllegalArgumentException("writeWithResponseWindow can't be negative, was " + writeWithResponseWindow);
+        }
+        this.writeWithoutResponseCredits = writeWithoutResponseCredits;
+        this.writeWithResponseWindow = writeWithResponseWindow;
+    }
+
+    public int getWriteWithoutResponseCredits() {
+        return writeWithoutResponseCredits;
+    }
+
+    public int getWriteWithResponseWindow() {
+        return writeWithResponseWindow;
+    }
+}
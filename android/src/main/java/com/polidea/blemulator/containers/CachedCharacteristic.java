@@ -3,32 +3,60 @@ package com.polidea.blemulator.containers;
 import com.polidea.multiplatformbleadapter.Characteristic;
 import com.polidea.multiplatformbleadapter.Descriptor;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
 
 public class CachedCharacteristic {
-    private Characteristic characteristic;
-    private Map<String, Descriptor> descriptorMap = new HashMap<>();
+    private final GattTable table;
+    private final int index;
 
-    public CachedCharacteristic(Characteristic characteristic) {
-        this.characteristic = characteristic;
+    CachedCharacteristic(GattTable table, int index) {
+        this.table = table;
+        this.index = index;
     }
 
     public Characteristic getCharacteristic() {
-        return characteristic;
+        return table.createCharacteristic(index);
     }
 
-    public void addDescriptor(Descriptor descriptor) {
-        descriptorMap.put(descriptor.getUuid().toString().toLowerCase(), descriptor);
+    public int getId() {
+        return table.getId(index);
+    }
+
+    public String getDeviceId() {
+        return table.getDeviceId();
+    }
+
+    public UUID getUuid() {
+        return table.getUuid(index);
+    }
+
+    public int getProperties() {
+        return table.getProperties(index);
+    }
+
+    public void setNotifying(boolean isNotifying) {
+        table.setNotifying(index, isNotifying);
     }
 
     public Descriptor getDescriptor(String uuid) {
-        return descriptorMap.get(uuid.toLowerCase());
+        int descriptorIndex = table.findChild(index, uuid);
+        return descriptorIndex >= 0 ? table.createDescriptor(descriptorIndex) : null;
     }
 
     public List<Descriptor> getDescriptors() {
-        return new ArrayList<>(descriptorMap.values());
+        return table.getDescriptors(index);
+    }
+
+    public void updateCachedValue(byte[] value, long timestampMillis) {
+        table.updateCachedValue(index, value, timestampMillis);
+    }
+
+    public byte[] getCachedValue(long nowMillis, long ttlMillis) {
+        return table.getCachedValue(index, nowMillis, ttlMillis);
+    }
+
+    public void invalidateCachedValue() {
+        table.invalidateCachedValue(index);
     }
 }
@@ -4,21 +4,20 @@ import com.polidea.multiplatformbleadapter.Descriptor;
 import com.polidea.multiplatformbleadapter.Device;
 import com.polidea.multiplatformbleadapter.Service;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class DeviceContainer {
     private boolean isConnected;
     private Device device;
-    private Map<String, CachedService> servicesByUuid = new HashMap<>();
-    private Map<Integer, CachedService> servicesById = new HashMap<>();
-    private Map<Integer, CachedCharacteristic> characteristicsById = new HashMap<>();
-    private Map<Integer, Descriptor> descriptorsById = new HashMap<>();
+    private final GattIdIndex gattIdIndex;
+    private volatile GattTable gattTable = GattTable.EMPTY;
+    private volatile boolean isDiscoveryDone = false;
+    private volatile GattTable retainedGattTable = GattTable.EMPTY;
+    private volatile String databaseHash = null;
 
-    public DeviceContainer(Device device) {
+    public DeviceContainer(Device device, GattIdIndex gattIdIndex) {
         this.device = device;
+        this.gattIdIndex = gattIdIndex;
     }
 
     public boolean isConnected() {
@@ -34,53 +33,100 @@ public class DeviceContainer {
     }
 
     public CachedService getCachedService(String uuid) {
-        return servicesByUuid.get(uuid.toLowerCase());
+        return gattTable.getCachedService(uuid);
     }
 
     public CachedService getCachedService(Integer id) {
-        return servicesById.get(id);
+        return gattTable.getCachedService(id);
     }
 
     public List<Service> getServices() {
-        ArrayList<Service> result = new ArrayList<>();
-
-        for (CachedService service : servicesById.values()) {
-            result.add(service.getService());
-        }
+        return gattTable.getServices();
+    }
 
-        return result;
+    public boolean isDiscoveryDone() {
+        return isDiscoveryDone;
     }
 
     public CachedCharacteristic getCachedCharacteristic(Integer id) {
-        return characteristicsById.get(id);
+        return gattTable.getCachedCharacteristic(id);
     }
 
     public Descriptor getDescriptor(Integer id) {
-        return descriptorsById.get(id);
+        return gattTable.getDescriptor(id);
     }
 
     public boolean hasId(int id) {
-        return servicesById.containsKey(id) || characteristicsById.containsKey(id) || descriptorsById.containsKey(id);
-    }
-
-    public void addGatts(List<CachedService> services) {
-        for (CachedService service : services) {
-            servicesByUuid.put(service.getService().getUuid().toString().toLowerCase(), service);
-            servicesById.put(service.getService().getId(), service);
-            for (CachedCharacteristic characteristic : service.getCachedCharacteristics()) {
-                characteristicsById.put(characteristic.getCharacteristic().getId(), characteristic);
-                for (Descriptor descriptor : characteristic.getDescriptors()) {
-                    descriptorsById.put(descriptor.getId(), descriptor);
-                }
+        return gattTable.hasId(id);
+    }
+
+    public void addGatts(GattTable services) {
+        setGattTable(gattTable.withServices(services));
+        isDiscoveryDone = true;
+    }
+
+    public boolean onDiscoveryCompleted(DiscoveredGatts discoveredGatts) {
+        if (discoveredGatts.isUnchanged()) {
+            if (!discoveredGatts.getDatabaseHash().equals(getRetainedDatabaseHash())) {
+                dropRetainedGatts();
+                return false;
             }
+            setGattTable(retainedGattTable);
+        } else {
+            setGattTable(discoveredGatts.getServices());
         }
+        databaseHash = discoveredGatts.getDatabaseHash();
+        retainedGattTable = GattTable.EMPTY;
+        isDiscoveryDone = true;
+        return true;
+    }
+
+    public String getRetainedDatabaseHash() {
+        return retainedGattTable.size() > 0 ? databaseHash : null;
+    }
+
+    public void dropRetainedGatts() {
+        retainedGattTable = GattTable.EMPTY;
+        databaseHash = null;
+    }
+
+    public void invalidateHandleRange(int startHandle, int endHandle) {
+        setGattTable(gattTable.withoutServicesInHandleRange(startHandle, endHandle));
+        databaseHash = null;
+    }
+
+    public void onPartialDiscoveryFailed() {
+        setGattTable(GattTable.EMPTY);
+        databaseHash = null;
+        isDiscoveryDone = false;
     }
 
     public void clear() {
-        servicesById.clear();
-        servicesByUuid.clear();
-        characteristicsById.clear();
-        descriptorsById.clear();
+        if (isDiscoveryDone && databaseHash != null) {
+            retainedGattTable = gattTable;
+            retainedGattTable.resetLiveState();
+        }
+        setGattTable(GattTable.EMPTY);
+        isDiscoveryDone = false;
         isConnected = false;
     }
+
+    private synchronized void setGattTable(GattTable updatedTable) {
+        GattTable previousTable = gattTable;
+        if (updatedTable == previousTable) {
+            return;
+        }
+
+        gattTable = updatedTable;
+
+        for (int i = 0; i < updatedTable.size(); i++) {
+            gattIdIndex.register(updatedTable.getIdAt(i), this);
+        }
+        for (int i = 0; i < previousTable.size(); i++) {
+            int id = previousTable.getIdAt(i);
+            if (!updatedTable.hasId(id)) {
+                gattIdIndex.unregister(id, this);
+            }
+        }
+    }
 }
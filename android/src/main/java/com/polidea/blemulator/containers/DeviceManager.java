@@ -8,6 +8,7 @@ import java.util.Map;
 
 public class DeviceManager {
     private Map<String, DeviceContainer> deviceContainers = new HashMap<>();
+    private final GattIdIndex gattIdIndex = new GattIdIndex();
 
     public void updateConnectionStateForDevice(String deviceId, ConnectionState state) {
         switch (state) {
@@ -22,7 +23,7 @@ public class DeviceManager {
 
     public void addDeviceIfUnknown(String deviceId, String name) {
         if (!deviceContainers.containsKey(deviceId)) {
-            deviceContainers.put(deviceId, new DeviceContainer(new Device(deviceId, name)));
+            deviceContainers.put(deviceId, new DeviceContainer(new Device(deviceId, name), gattIdIndex));
         }
     }
 
@@ -33,12 +34,7 @@ public class DeviceManager {
     }
 
     public DeviceContainer getDeviceContainerForGattId(int id) {
-        for (DeviceContainer deviceContainer : deviceContainers.values()) {
-            if (deviceContainer.hasId(id)) {
-                return deviceContainer;
-            }
-        }
-        return null;
+        return gattIdIndex.get(id);
     }
 
     public DeviceContainer getDeviceContainer(String deviceId) {
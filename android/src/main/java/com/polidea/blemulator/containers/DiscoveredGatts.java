@@ -0,0 +1,27 @@
+package com.polidea.blemulator.containers;
+
+public class DiscoveredGatts {
+    private final GattTable services;
+    private final String databaseHash;
+
+    public DiscoveredGatts(GattTable services, String databaseHash) {
+        this.services = services;
+        this.databaseHash = databaseHash;
+    }
+
+    public static DiscoveredGatts unchanged(String databaseHash) {
+        return new DiscoveredGatts(null, databaseHash);
+    }
+
+    public boolean isUnchanged() {
+        return services == null;
+    }
+
+    public GattTable getServices() {
+        return services;
+    }
+
+    public String getDatabaseHash() {
+        return databaseHash;
+    }
+}
@@ -0,0 +1,20 @@
+package com.polidea.blemulator.containers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class GattIdIndex {
+    private final ConcurrentMap<Integer, DeviceContainer> containersByGattId = new ConcurrentHashMap<>();
+
+    public void register(int id, DeviceContainer deviceContainer) {
+        containersByGattId.put(id, deviceContainer);
+    }
+
+    public void unregister(int id, DeviceContainer deviceContainer) {
+        containersByGattId.remove(id, deviceContainer);
+    }
+
+    public DeviceContainer get(int id) {
+        return containersByGattId.get(id);
+    }
+}
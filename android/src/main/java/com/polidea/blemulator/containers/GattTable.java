@@ -0,0 +1,428 @@
+package com.polidea.blemulator.containers;
+
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.bluetooth.BluetoothGattService;
+
+import com.polidea.blemulator.parser.UuidParser;
+import com.polidea.multiplatformbleadapter.Characteristic;
+import com.polidea.multiplatformbleadapter.Descriptor;
+import com.polidea.multiplatformbleadapter.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static com.polidea.multiplatformbleadapter.utils.Constants.CLIENT_CHARACTERISTIC_CONFIG_UUID;
+
+public class GattTable {
+    public static final GattTable EMPTY = new Builder().build();
+
+    private static final byte SERVICE = 0;
+    private static final byte CHARACTERISTIC = 1;
+    private static final byte DESCRIPTOR = 2;
+    private static final int NOT_FOUND = -1;
+    private static final int NO_PARENT = -1;
+    private static final int MAX_DENSE_INDEX_OVERHEAD = 2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    //nodes are stored depth first, so every node is directly followed by its subtree
+    private final String deviceId;
+    private final int size;
+    private final int[] ids;
+    private final byte[] kinds;
+    private final int[] parentIndices;
+    private final int[] subtreeEnds;
+    private final long[] uuidMostSignificantBits;
+    private final long[] uuidLeastSignificantBits;
+    private final int[] properties;
+    private final byte[][] values;
+    private final int[] serviceIndices;
+
+    //live characteristic state, only touched from the adapter event loop
+    private final boolean[] isNotifying;
+    private final byte[][] cachedValues;
+    private final long[] cachedValueTimestamps;
+
+    private final int firstId;
+    private final int[] denseIndex;
+    private final int[] sortedIds;
+    private final int[] sortedIndices;
+    private volatile List<Service> servicesSnapshot = null;
+
+    private GattTable(Builder builder) {
+        size = builder.size;
+        deviceId = builder.deviceId;
+        ids = Arrays.copyOf(builder.ids, size);
+        kinds = Arrays.copyOf(builder.kinds, size);
+        parentIndices = Arrays.copyOf(builder.parentIndices, size);
+        uuidMostSignificantBits = Arrays.copyOf(builder.uuidMostSignificantBits, size);
+        uuidLeastSignificantBits = Arrays.copyOf(builder.uuidLeastSignificantBits, size);
+        properties = Arrays.copyOf(builder.properties, size);
+        values = Arrays.copyOf(builder.values, size);
+        isNotifying = Arrays.copyOf(builder.isNotifying, size);
+        cachedValues = Arrays.copyOf(builder.cachedValues, size);
+        cachedValueTimestamps = Arrays.copyOf(builder.cachedValueTimestamps, size);
+
+        subtreeEnds = new int[size];
+        int serviceCount = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (subtreeEnds[i] == 0) {
+                subtreeEnds[i] = i + 1;
+            }
+            int parent = parentIndices[i];
+            if (parent != NO_PARENT && subtreeEnds[parent] == 0) {
+                subtreeEnds[parent] = subtreeEnds[i];
+            }
+            if (kinds[i] == SERVICE) {
+                serviceCount++;
+            }
+        }
+        serviceIndices = new int[serviceCount];
+        for (int i = 0, service = 0; i < size; i++) {
+            if (kinds[i] == SERVICE) {
+                serviceIndices[service++] = i;
+            }
+        }
+
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        sortedIds = new int[size];
+        sortedIndices = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = (int) (order[i] >> 32);
+            sortedIndices[i] = (int) order[i];
+        }
+
+        firstId = size > 0 ? sortedIds[0] : 0;
+        long idSpan = size > 0 ? (long) sortedIds[size - 1] - firstId + 1 : 0;
+        if (size > 0 && idSpan <= (long) size * MAX_DENSE_INDEX_OVERHEAD) {
+            denseIndex = new int[(int) idSpan];
+            Arrays.fill(denseIndex, NOT_FOUND);
+            for (int i = 0; i < size; i++) {
+                denseIndex[ids[i] - firstId] = i;
+            }
+        } else {
+            denseIndex = null;
+        }
+    }
+
+    public GattTable withServices(GattTable addedServices) {
+        Builder builder = new Builder();
+        for (int service : serviceIndices) {
+            if (addedServices.indexOfService(ids[service]) == NOT_FOUND) {
+                builder.copySubtree(this, service);
+            }
+        }
+        for (int service : addedServices.serviceIndices) {
+            builder.copySubtree(addedServices, service);
+        }
+        return builder.build();
+    }
+
+    public GattTable withoutServicesInHandleRange(int startHandle, int endHandle) {
+        Builder builder = new Builder();
+        for (int service : serviceIndices) {
+            if (!isSubtreeInHandleRange(service, startHandle, endHandle)) {
+                builder.copySubtree(this, service);
+            }
+        }
+        return builder.size == size ? this : builder.build();
+    }
+
+    private boolean isSubtreeInHandleRange(int index, int startHandle, int endHandle) {
+        int firstHandle = ids[index];
+        int lastHandle = firstHandle;
+        for (int i = index + 1; i < subtreeEnds[index]; i++) {
+            firstHandle = Math.min(firstHandle, ids[i]);
+            lastHandle = Math.max(lastHandle, ids[i]);
+        }
+        return firstHandle <= endHandle && lastHandle >= startHandle;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getIdAt(int index) {
+        return ids[index];
+    }
+
+    public boolean hasId(int id) {
+        return indexOf(id) != NOT_FOUND;
+    }
+
+    public CachedService getCachedService(int id) {
+        int index = indexOfService(id);
+        return index != NOT_FOUND ? new CachedService(this, index) : null;
+    }
+
+    public CachedService getCachedService(String uuid) {
+        if (!UuidParser.isUuid(uuid)) {
+            return null;
+        }
+        long mostSignificantBits = UuidParser.mostSignificantBits(uuid);
+        long leastSignificantBits = UuidParser.leastSignificantBits(uuid);
+        for (int service : serviceIndices) {
+            if (hasUuid(service, mostSignificantBits, leastSignificantBits)) {
+                return new CachedService(this, service);
+            }
+        }
+        return null;
+    }
+
+    public CachedCharacteristic getCachedCharacteristic(int id) {
+        int index = indexOf(id);
+        return index != NOT_FOUND && kinds[index] == CHARACTERISTIC ? new CachedCharacteristic(this, index) : null;
+    }
+
+    public Descriptor getDescriptor(int id) {
+        int index = indexOf(id);
+        return index != NOT_FOUND && kinds[index] == DESCRIPTOR ? createDescriptor(index) : null;
+    }
+
+    public List<Service> getServices() {
+        List<Service> snapshot = servicesSnapshot;
+        if (snapshot == null) {
+            //services carry no live state, so the first read builds the list for every later one
+            ArrayList<Service> services = new ArrayList<>(serviceIndices.length);
+            for (int service : serviceIndices) {
+                services.add(createService(service));
+            }
+            snapshot = Collections.unmodifiableList(services);
+            servicesSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    public void resetLiveState() {
+        for (int i = 0; i < size; i++) {
+            isNotifying[i] = false;
+            cachedValues[i] = null;
+        }
+    }
+
+    String getDeviceId() {
+        return deviceId;
+    }
+
+    int getId(int index) {
+        return ids[index];
+    }
+
+    UUID getUuid(int index) {
+        return UuidParser.fromBits(uuidMostSignificantBits[index], uuidLeastSignificantBits[index]);
+    }
+
+    int getProperties(int index) {
+        return properties[index];
+    }
+
+    int findChild(int index, String uuid) {
+        if (!UuidParser.isUuid(uuid)) {
+            return NOT_FOUND;
+        }
+        long mostSignificantBits = UuidParser.mostSignificantBits(uuid);
+        long leastSignificantBits = UuidParser.leastSignificantBits(uuid);
+        for (int child = index + 1; child < subtreeEnds[index]; child = subtreeEnds[child]) {
+            if (hasUuid(child, mostSignificantBits, leastSignificantBits)) {
+                return child;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    List<Characteristic> getCharacteristics(int serviceIndex) {
+        Service service = createService(serviceIndex);
+        ArrayList<Characteristic> characteristics = new ArrayList<>();
+        for (int child = serviceIndex + 1; child < subtreeEnds[serviceIndex]; child = subtreeEnds[child]) {
+            characteristics.add(createCharacteristic(child, service));
+        }
+        return Collections.unmodifiableList(characteristics);
+    }
+
+    List<Descriptor> getDescriptors(int characteristicIndex) {
+        ArrayList<Descriptor> descriptors = new ArrayList<>();
+        for (int child = characteristicIndex + 1; child < subtreeEnds[characteristicIndex]; child++) {
+            descriptors.add(createDescriptor(child));
+        }
+        return Collections.unmodifiableList(descriptors);
+    }
+
+    Service createService(int index) {
+        return new Service(ids[index], deviceId, new BluetoothGattService(getUuid(index), BluetoothGattService.SERVICE_TYPE_PRIMARY));
+    }
+
+    Characteristic createCharacteristic(int index) {
+        return createCharacteristic(index, createService(parentIndices[index]));
+    }
+
+    private Characteristic createCharacteristic(int index, Service service) {
+        BluetoothGattCharacteristic btCharacteristic = new BluetoothGattCharacteristic(getUuid(index), properties[index], 0);
+        BluetoothGattDescriptor clientConfigDescriptor = new BluetoothGattDescriptor(CLIENT_CHARACTERISTIC_CONFIG_UUID, 0);
+        clientConfigDescriptor.setValue(isNotifying[index] ? new byte[]{0x01} : new byte[]{0x00});
+        btCharacteristic.addDescriptor(clientConfigDescriptor);
+
+        Characteristic characteristic = new Characteristic(ids[index], service, btCharacteristic);
+        if (values[index] != null) {
+            characteristic.setValue(Arrays.copyOf(values[index], values[index].length));
+        }
+        return characteristic;
+    }
+
+    Descriptor createDescriptor(int index) {
+        int characteristicIndex = parentIndices[index];
+        int serviceIndex = parentIndices[characteristicIndex];
+        UUID uuid = getUuid(index);
+        Descriptor descriptor = new Descriptor(ids[characteristicIndex],
+                ids[serviceIndex], getUuid(characteristicIndex),
+                getUuid(serviceIndex),
+                deviceId, new BluetoothGattDescriptor(uuid, 0), ids[index], uuid);
+        if (values[index] != null) {
+            descriptor.setValue(Arrays.copyOf(values[index], values[index].length));
+        }
+        return descriptor;
+    }
+
+    void setNotifying(int index, boolean notifying) {
+        isNotifying[index] = notifying;
+    }
+
+    void updateCachedValue(int index, byte[] value, long timestampMillis) {
+        cachedValues[index] = value != null ? Arrays.copyOf(value, value.length) : null;
+        cachedValueTimestamps[index] = timestampMillis;
+    }
+
+    byte[] getCachedValue(int index, long nowMillis, long ttlMillis) {
+        byte[] cachedValue = cachedValues[index];
+        if (cachedValue == null || nowMillis - cachedValueTimestamps[index] > ttlMillis) {
+            return null;
+        }
+        return Arrays.copyOf(cachedValue, cachedValue.length);
+    }
+
+    void invalidateCachedValue(int index) {
+        cachedValues[index] = null;
+    }
+
+    private boolean hasUuid(int index, long mostSignificantBits, long leastSignificantBits) {
+        return uuidMostSignificantBits[index] == mostSignificantBits
+                && uuidLeastSignificantBits[index] == leastSignificantBits;
+    }
+
+    private int indexOfService(int id) {
+        int index = indexOf(id);
+        return index != NOT_FOUND && kinds[index] == SERVICE ? index : NOT_FOUND;
+    }
+
+    private int indexOf(int id) {
+        if (denseIndex != null) {
+            long offset = (long) id - firstId;
+            return offset >= 0 && offset < denseIndex.length ? denseIndex[(int) offset] : NOT_FOUND;
+        }
+        int position = Arrays.binarySearch(sortedIds, id);
+        return position >= 0 ? sortedIndices[position] : NOT_FOUND;
+    }
+
+    public static class Builder {
+        private String deviceId = null;
+        private int size = 0;
+        private int lastService = NO_PARENT;
+        private int lastCharacteristic = NO_PARENT;
+        private int[] ids = new int[INITIAL_CAPACITY];
+        private byte[] kinds = new byte[INITIAL_CAPACITY];
+        private int[] parentIndices = new int[INITIAL_CAPACITY];
+        private long[] uuidMostSignificantBits = new long[INITIAL_CAPACITY];
+        private long[] uuidLeastSignificantBits = new long[INITIAL_CAPACITY];
+        private int[] properties = new int[INITIAL_CAPACITY];
+        private byte[][] values = new byte[INITIAL_CAPACITY][];
+        private boolean[] isNotifying = new boolean[INITIAL_CAPACITY];
+        private byte[][] cachedValues = new byte[INITIAL_CAPACITY][];
+        private long[] cachedValueTimestamps = new long[INITIAL_CAPACITY];
+
+        public Builder addService(String deviceId, int id, UUID uuid) {
+            this.deviceId = deviceId;
+            lastService = add(SERVICE, id, uuid, NO_PARENT);
+            lastCharacteristic = NO_PARENT;
+            return this;
+        }
+
+        public Builder addCharacteristic(int id, UUID uuid, int properties, boolean isNotifying, byte[] value) {
+            if (lastService == NO_PARENT) {
+                throw new IllegalStateException("Characteristic " + id + " has to follow a service");
+            }
+            lastCharacteristic = add(CHARACTERISTIC, id, uuid, lastService);
+            this.properties[lastCharacteristic] = properties;
+            this.isNotifying[lastCharacteristic] = isNotifying;
+            this.values[lastCharacteristic] = value;
+            return this;
+        }
+
+        public Builder addDescriptor(int id, UUID uuid, byte[] value) {
+            if (lastCharacteristic == NO_PARENT) {
+                throw new IllegalStateException("Descriptor " + id + " has to follow a characteristic");
+            }
+            int index = add(DESCRIPTOR, id, uuid, lastCharacteristic);
+            values[index] = value;
+            return this;
+        }
+
+        public GattTable build() {
+            return new GattTable(this);
+        }
+
+        private void copySubtree(GattTable source, int index) {
+            if (source.deviceId != null) {
+                deviceId = source.deviceId;
+            }
+            int offset = size - index;
+            for (int i = index; i < source.subtreeEnds[index]; i++) {
+                int parent = source.parentIndices[i];
+                int copied = add(source.kinds[i], source.ids[i], source.uuidMostSignificantBits[i], source.uuidLeastSignificantBits[i],
+                        parent == NO_PARENT || parent < index ? NO_PARENT : parent + offset);
+                properties[copied] = source.properties[i];
+                values[copied] = source.values[i];
+                isNotifying[copied] = source.isNotifying[i];
+                cachedValues[copied] = source.cachedValues[i];
+                cachedValueTimestamps[copied] = source.cachedValueTimestamps[i];
+            }
+            lastService = NO_PARENT;
+            lastCharacteristic = NO_PARENT;
+        }
+
+        private int add(byte kind, int id, UUID uuid, int parent) {
+            return add(kind, id, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), parent);
+        }
+
+        private int add(byte kind, int id, long mostSignificantBits, long leastSignificantBits, int parent) {
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            kinds[size] = kind;
+            parentIndices[size] = parent;
+            uuidMostSignificantBits[size] = mostSignificantBits;
+            uuidLeastSignificantBits[size] = leastSignificantBits;
+            return size++;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            parentIndices = Arrays.copyOf(parentIndices, capacity);
+            uuidMostSignificantBits = Arrays.copyOf(uuidMostSignificantBits, capacity);
+            uuidLeastSignificantBits = Arrays.copyOf(uuidLeastSignificantBits, capacity);
+            properties = Arrays.copyOf(properties, capacity);
+            values = Arrays.copyOf(values, capacity);
+            isNotifying = Arrays.copyOf(isNotifying, capacity);
+            cachedValues = Arrays.copyOf(cachedValues, capacity);
+            cachedValueTimestamps = Arrays.copyOf(cachedValueTimestamps, capacity);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.polidea.blemulator.containers;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class ValueCacheSettings {
+    public static final long CACHE_DISABLED = 0;
+
+    private final ConcurrentMap<UUID, Long> ttlMillisByCharacteristicUuid = new ConcurrentHashMap<>();
+
+    public void setTtl(UUID characteristicUuid, long ttlMillis) {
+        if (ttlMillis > CACHE_DISABLED) {
+            ttlMillisByCharacteristicUuid.put(characteristicUuid, ttlMillis);
+        } else {
+            ttlMillisByCharacteristicUuid.remove(characteristicUuid);
+        }
+    }
+
+    public long getTtlMillis(UUID characteristicUuid) {
+        if (ttlMillisByCharacteristicUuid.isEmpty()) {
+            return CACHE_DISABLED;
+        }
+        Long ttlMillis = ttlMillisByCharacteristicUuid.get(characteristicUuid);
+        return ttlMillis != null ? ttlMillis : CACHE_DISABLED;
+    }
+}
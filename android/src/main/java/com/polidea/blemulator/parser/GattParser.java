@@ -3,61 +3,49 @@ package com.polidea.blemulator.parser;
 import android.bluetooth.BluetoothGattCharacteristic;
 import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothGattService;
-import android.util.Base64;
 
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.polidea.blemulator.NativeArgumentName;
-import com.polidea.blemulator.containers.CachedCharacteristic;
-import com.polidea.blemulator.containers.CachedService;
+import com.polidea.blemulator.containers.GattTable;
 import com.polidea.multiplatformbleadapter.Characteristic;
 import com.polidea.multiplatformbleadapter.Descriptor;
 import com.polidea.multiplatformbleadapter.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
-
 import static com.polidea.multiplatformbleadapter.utils.Constants.CLIENT_CHARACTERISTIC_CONFIG_UUID;
 
 public class GattParser {
-    public CachedCharacteristic parseCharacteristic(ReadableMap serializedCharacteristic, Service service) {
+    public Characteristic parseCharacteristic(ReadableMap serializedCharacteristic) {
         String uuid = serializedCharacteristic.getString(NativeArgumentName.UUID);
         int id = serializedCharacteristic.getInt(NativeArgumentName.ID);
-        int properties = 0;
-        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_READABLE) ? BluetoothGattCharacteristic.PROPERTY_READ : 0;
-        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_WRITABLE_WITH_RESPONSE) ? BluetoothGattCharacteristic.PROPERTY_WRITE : 0;
-        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_WRITABLE_WITHOUT_RESPONSE) ? BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE : 0;
-        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_NOTIFIABLE) ? BluetoothGattCharacteristic.PROPERTY_NOTIFY : 0;
-        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_INDICATABLE) ? BluetoothGattCharacteristic.PROPERTY_INDICATE : 0;
 
-        BluetoothGattCharacteristic btCharacteristic = new BluetoothGattCharacteristic(UUID.fromString(uuid), properties, 0);
+        BluetoothGattCharacteristic btCharacteristic = new BluetoothGattCharacteristic(UuidParser.parse(uuid), parseProperties(serializedCharacteristic), 0);
         BluetoothGattDescriptor clientConfigDescriptor = new BluetoothGattDescriptor(CLIENT_CHARACTERISTIC_CONFIG_UUID, 0);
         clientConfigDescriptor.setValue(serializedCharacteristic.getBoolean(NativeArgumentName.IS_NOTIFYING) ? new byte[]{0x01} : new byte[]{0x00});
         btCharacteristic.addDescriptor(clientConfigDescriptor);
 
-        Service resolvedService = service;
-        if (resolvedService == null) {
-            int serviceId = serializedCharacteristic.getInt(NativeArgumentName.SERVICE_ID);
-            String serviceUuid = serializedCharacteristic.getString(NativeArgumentName.SERVICE_UUID);
-            BluetoothGattService btService = new BluetoothGattService(UUID.fromString(serviceUuid), BluetoothGattService.SERVICE_TYPE_PRIMARY);
-            String deviceId = serializedCharacteristic.getString(NativeArgumentName.DEVICE_ID);
-            resolvedService = new Service(serviceId, deviceId, btService);
-        }
-
-        Characteristic characteristic = new Characteristic(id, resolvedService, btCharacteristic);
-        String valueBase64 = serializedCharacteristic.getString(NativeArgumentName.VALUE);
-        if (valueBase64 != null) {
-            characteristic.setValue(Base64.decode(valueBase64, 0));
-        }
-        CachedCharacteristic cachedCharacteristic = new CachedCharacteristic(characteristic);
+        int serviceId = serializedCharacteristic.getInt(NativeArgumentName.SERVICE_ID);
+        String serviceUuid = serializedCharacteristic.getString(NativeArgumentName.SERVICE_UUID);
+        BluetoothGattService btService = new BluetoothGattService(UuidParser.parse(serviceUuid), BluetoothGattService.SERVICE_TYPE_PRIMARY);
+        String deviceId = serializedCharacteristic.getString(NativeArgumentName.DEVICE_ID);
+        Service service = new Service(serviceId, deviceId, btService);
 
-        List<Descriptor> descriptors = parseDescriptors(serializedCharacteristic.getArray(NativeArgumentName.DESCRIPTORS));
-        for (Descriptor descriptor : descriptors) {
-            cachedCharacteristic.addDescriptor(descriptor);
+        Characteristic characteristic = new Characteristic(id, service, btCharacteristic);
+        byte[] value = ValueParser.parse(serializedCharacteristic, NativeArgumentName.VALUE);
+        if (value != null) {
+            characteristic.setValue(value);
         }
+        return characteristic;
+    }
 
-        return cachedCharacteristic;
+    private static int parseProperties(ReadableMap serializedCharacteristic) {
+        int properties = 0;
+        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_READABLE) ? BluetoothGattCharacteristic.PROPERTY_READ : 0;
+        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_WRITABLE_WITH_RESPONSE) ? BluetoothGattCharacteristic.PROPERTY_WRITE : 0;
+        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_WRITABLE_WITHOUT_RESPONSE) ? BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE : 0;
+        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_NOTIFIABLE) ? BluetoothGattCharacteristic.PROPERTY_NOTIFY : 0;
+        properties |= serializedCharacteristic.getBoolean(NativeArgumentName.IS_INDICATABLE) ? BluetoothGattCharacteristic.PROPERTY_INDICATE : 0;
+        return properties;
     }
 
     public Descriptor parseDescriptor(ReadableMap serializedDescriptor) {
@@ -68,69 +56,61 @@ public class GattParser {
         int id = serializedDescriptor.getInt(NativeArgumentName.ID);
         int characteristicId = serializedDescriptor.getInt(NativeArgumentName.CHARACTERISTIC_ID);
         int serviceId = serializedDescriptor.getInt(NativeArgumentName.SERVICE_ID);
-        String value = serializedDescriptor.getString(NativeArgumentName.VALUE);
+        byte[] value = ValueParser.parse(serializedDescriptor, NativeArgumentName.VALUE);
 
-        BluetoothGattDescriptor btDescriptor = new BluetoothGattDescriptor(UUID.fromString(uuid), 0);
+        BluetoothGattDescriptor btDescriptor = new BluetoothGattDescriptor(UuidParser.parse(uuid), 0);
         Descriptor descriptor = new Descriptor(characteristicId,
-                serviceId, UUID.fromString(characteristicUuid),
-                UUID.fromString(serviceUuid),
-                deviceId, btDescriptor, id, UUID.fromString(uuid));
+                serviceId, UuidParser.parse(characteristicUuid),
+                UuidParser.parse(serviceUuid),
+                deviceId, btDescriptor, id, UuidParser.parse(uuid));
 
         if (value != null) {
-            descriptor.setValue(Base64.decode(value, 0));
+            descriptor.setValue(value);
         }
         return descriptor;
     }
 
-    public List<CachedService> parseDiscoveryResponse(ReadableArray response) {
-        ArrayList<CachedService> result = new ArrayList<>();
+    public GattTable parseDiscoveryResponse(ReadableArray response) {
+        GattTable.Builder builder = new GattTable.Builder();
 
-        if (response == null) return result;
+        if (response == null) return builder.build();
 
         for (int i = 0; i < response.size(); i++) {
             ReadableMap serializedService = response.getMap(i);
-            String deviceId = serializedService.getString(NativeArgumentName.DEVICE_ID);
-            int id = serializedService.getInt(NativeArgumentName.ID);
-            String uuid = serializedService.getString(NativeArgumentName.UUID);
-            Service service = new Service(id, deviceId, new BluetoothGattService(UUID.fromString(uuid), BluetoothGattService.SERVICE_TYPE_PRIMARY));
-            CachedService cachedService = new CachedService(service);
-            List<CachedCharacteristic> characteristics = parseCharacteristics(service, serializedService.getArray(NativeArgumentName.CHARACTERISTICS));
-            for (CachedCharacteristic cachedCharacteristic : characteristics) {
-                cachedService.addCharacteristic(cachedCharacteristic);
-            }
-            result.add(cachedService);
+            builder.addService(
+                    serializedService.getString(NativeArgumentName.DEVICE_ID),
+                    serializedService.getInt(NativeArgumentName.ID),
+                    UuidParser.parse(serializedService.getString(NativeArgumentName.UUID)));
+            parseCharacteristics(builder, serializedService.getArray(NativeArgumentName.CHARACTERISTICS));
         }
 
-        return result;
+        return builder.build();
     }
 
-    private List<CachedCharacteristic> parseCharacteristics(Service service, ReadableArray response) {
-        ArrayList<CachedCharacteristic> result = new ArrayList<>();
-
-        if (response == null) return result;
+    private void parseCharacteristics(GattTable.Builder builder, ReadableArray response) {
+        if (response == null) return;
 
         for (int i = 0; i < response.size(); i++) {
             ReadableMap serializedCharacteristic = response.getMap(i);
-            CachedCharacteristic cachedCharacteristic = parseCharacteristic(serializedCharacteristic, service);
-            result.add(cachedCharacteristic);
+            builder.addCharacteristic(
+                    serializedCharacteristic.getInt(NativeArgumentName.ID),
+                    UuidParser.parse(serializedCharacteristic.getString(NativeArgumentName.UUID)),
+                    parseProperties(serializedCharacteristic),
+                    serializedCharacteristic.getBoolean(NativeArgumentName.IS_NOTIFYING),
+                    ValueParser.parse(serializedCharacteristic, NativeArgumentName.VALUE));
+            parseDescriptors(builder, serializedCharacteristic.getArray(NativeArgumentName.DESCRIPTORS));
         }
-
-        return result;
     }
 
-    private List<Descriptor> parseDescriptors(ReadableArray response) {
-        ArrayList<Descriptor> result = new ArrayList<>();
-
-        if (response == null) return result;
+    private void parseDescriptors(GattTable.Builder builder, ReadableArray response) {
+        if (response == null) return;
 
         for (int i = 0; i < response.size(); i++) {
             ReadableMap serializedDescriptor = response.getMap(i);
-
-            Descriptor descriptor = parseDescriptor(serializedDescriptor);
-
-            result.add(descriptor);
+            builder.addDescriptor(
+                    serializedDescriptor.getInt(NativeArgumentName.ID),
+                    UuidParser.parse(serializedDescriptor.getString(NativeArgumentName.UUID)),
+                    ValueParser.parse(serializedDescriptor, NativeArgumentName.VALUE));
         }
-
-        return result;
     }
 }
@@ -0,0 +1,136 @@
+package com.polidea.blemulator.parser;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.polidea.blemulator.NativeArgumentName;
+import com.polidea.multiplatformbleadapter.AdvertisementData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class LazyAdvertisementData extends AdvertisementData {
+    private static final int LAZY_FIELD_COUNT = 6;
+
+    //released once every field is decoded, guarded by this
+    private ReadableMap scanResult;
+    private int undecodedFieldCount = LAZY_FIELD_COUNT;
+
+    private volatile boolean isManufacturerDataDecoded = false;
+    private byte[] manufacturerData;
+    private volatile boolean isServiceDataDecoded = false;
+    private Map<UUID, byte[]> serviceData;
+    private volatile boolean isServiceUuidsDecoded = false;
+    private List<UUID> serviceUuids;
+    private volatile boolean isLocalNameDecoded = false;
+    private String localName;
+    private volatile boolean isTxPowerLevelDecoded = false;
+    private Integer txPowerLevel;
+    private volatile boolean isSolicitedServiceUuidsDecoded = false;
+    private List<UUID> solicitedServiceUuids;
+
+    public LazyAdvertisementData(ReadableMap scanResult) {
+        super(null, null, null, null, null, null);
+        this.scanResult = scanResult;
+    }
+
+    @Override
+    public byte[] getManufacturerData() {
+        if (!isManufacturerDataDecoded) {
+            synchronized (this) {
+                if (!isManufacturerDataDecoded) {
+                    manufacturerData = ValueParser.parse(scanResult, NativeArgumentName.MANUFACTURER_DATA);
+                    isManufacturerDataDecoded = true;
+                    onFieldDecoded();
+                }
+            }
+        }
+        return manufacturerData;
+    }
+
+    @Override
+    public Map<UUID, byte[]> getServiceData() {
+        if (!isServiceDataDecoded) {
+            synchronized (this) {
+                if (!isServiceDataDecoded) {
+                    serviceData = hasValue(NativeArgumentName.SERVICE_DATA)
+                            ? ReadableMapToMapParser.parse(scanResult.getMap(NativeArgumentName.SERVICE_DATA))
+                            : null;
+                    isServiceDataDecoded = true;
+                    onFieldDecoded();
+                }
+            }
+        }
+        return serviceData;
+    }
+
+    @Override
+    public List<UUID> getServiceUUIDs() {
+        if (!isServiceUuidsDecoded) {
+            synchronized (this) {
+                if (!isServiceUuidsDecoded) {
+                    serviceUuids = hasValue(NativeArgumentName.SERVICE_UUIDS)
+                            ? ReadableArrayToListParser.parse(scanResult.getArray(NativeArgumentName.SERVICE_UUIDS))
+                            : null;
+                    isServiceUuidsDecoded = true;
+                    onFieldDecoded();
+                }
+            }
+        }
+        return serviceUuids;
+    }
+
+    @Override
+    public String getLocalName() {
+        if (!isLocalNameDecoded) {
+            synchronized (this) {
+                if (!isLocalNameDecoded) {
+                    localName = hasValue(NativeArgumentName.LOCAL_NAME) ? scanResult.getString(NativeArgumentName.LOCAL_NAME) : null;
+                    isLocalNameDecoded = true;
+                    onFieldDecoded();
+                }
+            }
+        }
+        return localName;
+    }
+
+    @Override
+    public Integer getTxPowerLevel() {
+        if (!isTxPowerLevelDecoded) {
+            synchronized (this) {
+                if (!isTxPowerLevelDecoded) {
+                    txPowerLevel = hasValue(NativeArgumentName.TX_POWER_LEVEL) ? scanResult.getInt(NativeArgumentName.TX_POWER_LEVEL) : null;
+                    isTxPowerLevelDecoded = true;
+                    onFieldDecoded();
+                }
+            }
+        }
+        return txPowerLevel;
+    }
+
+    @Override
+    public List<UUID> getSolicitedServiceUUIDs() {
+        if (!isSolicitedServiceUuidsDecoded) {
+            synchronized (this) {
+                if (!isSolicitedServiceUuidsDecoded) {
+                    solicitedServiceUuids = hasValue(NativeArgumentName.SOLICITED_SERVICE_UUIDS)
+                            ? ReadableArrayToListParser.parse(scanResult.getArray(NativeArgumentName.SOLICITED_SERVICE_UUIDS))
+                            : null;
+                    isSolicitedServiceUuidsDecoded = true;
+                    onFieldDecoded();
+                }
+            }
+        }
+        return solicitedServiceUuids;
+    }
+
+    private void onFieldDecoded() {
+        undecodedFieldCount--;
+        if (undecodedFieldCount == 0) {
+            scanResult = null;
+        }
+    }
+
+    private boolean hasValue(String key) {
+        return scanResult.hasKey(key) && !scanResult.isNull(key);
+    }
+}
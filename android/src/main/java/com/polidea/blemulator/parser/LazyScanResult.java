@@ -0,0 +1,41 @@
+package com.polidea.blemulator.parser;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.polidea.blemulator.NativeArgumentName;
+
+import java.util.List;
+import java.util.UUID;
+
+public class LazyScanResult extends SerializedScanResult {
+    //released once the overflow service UUIDs are decoded, guarded by this
+    private ReadableMap scanResult;
+
+    private volatile boolean isOverflowServiceUuidsDecoded = false;
+    private UUID[] overflowServiceUuids;
+
+    public LazyScanResult(String id, String name, int rssi, int mtu, boolean isConnectable, ReadableMap scanResult, long payloadHash) {
+        super(id, name, rssi, mtu, isConnectable, null, new LazyAdvertisementData(scanResult), payloadHash);
+        this.scanResult = scanResult;
+    }
+
+    @Override
+    public UUID[] getOverflowServiceUUIDs() {
+        if (!isOverflowServiceUuidsDecoded) {
+            synchronized (this) {
+                if (!isOverflowServiceUuidsDecoded) {
+                    List<UUID> overflowServiceUuidsList =
+                            scanResult.hasKey(NativeArgumentName.OVERFLOW_SERVICE_UUIDS)
+                                    && !scanResult.isNull(NativeArgumentName.OVERFLOW_SERVICE_UUIDS)
+                                    ? ReadableArrayToListParser.parse(scanResult.getArray(NativeArgumentName.OVERFLOW_SERVICE_UUIDS))
+                                    : null;
+                    overflowServiceUuids = overflowServiceUuidsList != null
+                            ? overflowServiceUuidsList.toArray(new UUID[overflowServiceUuidsList.size()])
+                            : null;
+                    isOverflowServiceUuidsDecoded = true;
+                    scanResult = null;
+                }
+            }
+        }
+        return overflowServiceUuids;
+    }
+}
@@ -13,7 +13,7 @@ public class ReadableArrayToListParser {
         List<UUID> list = new ArrayList<>();
 
         for (int i = 0; i < source.size(); i++) {
-            list.add(UUID.fromString(source.getString(i)));
+            list.add(UuidParser.parse(source.getString(i)));
         }
 
         return list;
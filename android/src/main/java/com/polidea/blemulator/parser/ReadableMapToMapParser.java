@@ -1,7 +1,5 @@
 package com.polidea.blemulator.parser;
 
-import android.util.Base64;
-
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
 
@@ -19,8 +17,8 @@ public class ReadableMapToMapParser {
         while (keySetIterator.hasNextKey()) {
             String key = keySetIterator.nextKey();
             map.put(
-                    UUID.fromString(key),
-                    Base64.decode(source.getString(key), 0)
+                    UuidParser.parse(key),
+                    ValueParser.parse(source, key)
             );
         }
 
@@ -1,9 +1,9 @@
 package com.polidea.blemulator.parser;
 
-import android.util.Base64;
-
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
 import com.polidea.blemulator.NativeArgumentName;
 import com.polidea.multiplatformbleadapter.AdvertisementData;
 import com.polidea.multiplatformbleadapter.ScanResult;
@@ -16,7 +16,7 @@ public class ScanResultParser {
     static final int MTU_NOT_AVAILABLE_BEFORE_CONNECTION = -1;
     static final boolean IS_CONNECTABLE_IS_IOS_ONLY = false;
 
-    public static ScanResult parse(ReadableMap scanResult) {
+    public static ScanResult parse(ReadableMap scanResult, boolean isEagerDecodingEnabled) {
         if (scanResult == null) {
             return null;
         }
@@ -26,10 +26,14 @@ public class ScanResultParser {
         int rssi = scanResult.getInt(NativeArgumentName.RSSI);
         int mtu = MTU_NOT_AVAILABLE_BEFORE_CONNECTION;
         boolean isConnectable = IS_CONNECTABLE_IS_IOS_ONLY;
+        long payloadHash = hashPayload(scanResult, name);
+        if (!isEagerDecodingEnabled) {
+            return new LazyScanResult(id, name, rssi, mtu, isConnectable, scanResult, payloadHash);
+        }
+
         ReadableArray jsOverflowServiceUuids = scanResult.hasKey(NativeArgumentName.OVERFLOW_SERVICE_UUIDS) ?
                 scanResult.getArray(NativeArgumentName.OVERFLOW_SERVICE_UUIDS) : null;
-        byte[] manufacturerData = scanResult.hasKey(NativeArgumentName.MANUFACTURER_DATA) ?
-                Base64.decode(scanResult.getString(NativeArgumentName.MANUFACTURER_DATA), 0) : null;
+        byte[] manufacturerData = ValueParser.parse(scanResult, NativeArgumentName.MANUFACTURER_DATA);
         ReadableMap jsServiceData = scanResult.hasKey(NativeArgumentName.SERVICE_DATA) ?
                 scanResult.getMap(NativeArgumentName.SERVICE_DATA) : null;
         ReadableArray jsServiceUuids = scanResult.hasKey(NativeArgumentName.SERVICE_UUIDS) ?
@@ -47,7 +51,7 @@ public class ScanResultParser {
             overflowServiceUuids = overflowServiceUuidsList.toArray(new UUID[overflowServiceUuidsList.size()]);
         }
 
-        return new ScanResult(
+        return new SerializedScanResult(
                 id,
                 name,
                 rssi,
@@ -61,7 +65,82 @@ public class ScanResultParser {
                         localName,
                         txPowerLevel,
                         ReadableArrayToListParser.parse(jsSolicitedServiceUuids)
-                )
+                ),
+                payloadHash
         );
     }
+
+    //hashes the serialized fields as sent by JS, so comparing payloads never decodes base64 or UUIDs
+    private static long hashPayload(ReadableMap scanResult, String name) {
+        long hash = hashString(name);
+        hash = 31 * hash + hashValue(scanResult, NativeArgumentName.MANUFACTURER_DATA);
+        hash = 31 * hash + hashStringMap(getMap(scanResult, NativeArgumentName.SERVICE_DATA));
+        hash = 31 * hash + hashStringArray(getArray(scanResult, NativeArgumentName.SERVICE_UUIDS));
+        hash = 31 * hash + hashString(getString(scanResult, NativeArgumentName.LOCAL_NAME));
+        hash = 31 * hash + (hasValue(scanResult, NativeArgumentName.TX_POWER_LEVEL)
+                ? scanResult.getInt(NativeArgumentName.TX_POWER_LEVEL) : Integer.MIN_VALUE);
+        hash = 31 * hash + hashStringArray(getArray(scanResult, NativeArgumentName.SOLICITED_SERVICE_UUIDS));
+        hash = 31 * hash + hashStringArray(getArray(scanResult, NativeArgumentName.OVERFLOW_SERVICE_UUIDS));
+        return hash;
+    }
+
+    private static long hashString(String value) {
+        return value == null ? 0 : value.hashCode() * 0x9E3779B97F4A7C15L + value.length();
+    }
+
+    private static long hashValue(ReadableMap source, String key) {
+        if (!hasValue(source, key)) {
+            return 0;
+        }
+        if (source.getType(key) != ReadableType.Array) {
+            return hashString(source.getString(key));
+        }
+        ReadableArray bytes = source.getArray(key);
+        long hash = 1;
+        for (int i = 0; i < bytes.size(); i++) {
+            hash = 31 * hash + bytes.getInt(i);
+        }
+        return hash;
+    }
+
+    private static long hashStringArray(ReadableArray values) {
+        if (values == null) {
+            return 0;
+        }
+        long hash = 1;
+        for (int i = 0; i < values.size(); i++) {
+            hash = 31 * hash + hashString(values.getString(i));
+        }
+        return hash;
+    }
+
+    private static long hashStringMap(ReadableMap values) {
+        if (values == null) {
+            return 0;
+        }
+        //entry order is not part of the payload
+        long hash = 1;
+        ReadableMapKeySetIterator keySetIterator = values.keySetIterator();
+        while (keySetIterator.hasNextKey()) {
+            String key = keySetIterator.nextKey();
+            hash += hashString(key) ^ hashValue(values, key);
+        }
+        return hash;
+    }
+
+    private static boolean hasValue(ReadableMap scanResult, String key) {
+        return scanResult.hasKey(key) && !scanResult.isNull(key);
+    }
+
+    private static String getString(ReadableMap scanResult, String key) {
+        return hasValue(scanResult, key) ? scanResult.getString(key) : null;
+    }
+
+    private static ReadableArray getArray(ReadableMap scanResult, String key) {
+        return hasValue(scanResult, key) ? scanResult.getArray(key) : null;
+    }
+
+    private static ReadableMap getMap(ReadableMap scanResult, String key) {
+        return hasValue(scanResult, key) ? scanResult.getMap(key) : null;
+    }
 }
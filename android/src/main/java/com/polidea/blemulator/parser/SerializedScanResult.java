@@ -0,0 +1,20 @@
+package com.polidea.blemulator.parser;
+
+import com.polidea.multiplatformbleadapter.AdvertisementData;
+import com.polidea.multiplatformbleadapter.ScanResult;
+
+import java.util.UUID;
+
+public class SerializedScanResult extends ScanResult {
+    private final long payloadHash;
+
+    public SerializedScanResult(String id, String name, int rssi, int mtu, boolean isConnectable,
+                                UUID[] overflowServiceUuids, AdvertisementData advertisementData, long payloadHash) {
+        super(id, name, rssi, mtu, isConnectable, overflowServiceUuids, advertisementData);
+        this.payloadHash = payloadHash;
+    }
+
+    public long getPayloadHash() {
+        return payloadHash;
+    }
+}
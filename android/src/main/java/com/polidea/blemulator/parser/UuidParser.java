@@ -0,0 +1,180 @@
+package com.polidea.blemulator.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class UuidParser {
+    public static final int NOT_A_SHORT_UUID = -1;
+
+    private static final int MAX_CACHED_UUIDS = 1024;
+    private static final int SHORT_UUID_COUNT = 1 << 16;
+    private static final long BASE_UUID_MOST_SIGNIFICANT_BITS = 0x0000000000001000L;
+    private static final long BASE_UUID_LEAST_SIGNIFICANT_BITS = 0x800000805F9B34FBL;
+    private static final String BASE_UUID_PREFIX = "0000";
+    private static final String BASE_UUID_SUFFIX = "-0000-1000-8000-00805f9b34fb";
+    private static final int UUID_STRING_LENGTH = 36;
+    private static final int SHORT_UUID_LENGTH = 4;
+    private static final int SHORT_UUID_START = 4;
+    private static final int SHORT_UUID_END = 8;
+    private static final int[] DASH_POSITIONS = {8, 13, 18, 23};
+    private static final int LEAST_SIGNIFICANT_BITS_START = 19;
+    private static final byte[] HEX_DIGITS = new byte[128];
+
+    static {
+        for (int i = 0; i < HEX_DIGITS.length; i++) {
+            HEX_DIGITS[i] = -1;
+        }
+        for (int i = 0; i < 10; i++) {
+            HEX_DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_DIGITS['a' + i] = (byte) (10 + i);
+            HEX_DIGITS['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private static final AtomicReferenceArray<UUID> shortUuids = new AtomicReferenceArray<>(SHORT_UUID_COUNT);
+    private static final Map<String, UUID> cachedUuids = new LinkedHashMap<String, UUID>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+            return size() > MAX_CACHED_UUIDS;
+        }
+    };
+
+    public static UUID parse(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+
+        int shortUuid = parseShortUuid(uuid);
+        if (shortUuid != NOT_A_SHORT_UUID) {
+            return fromShortUuid(shortUuid);
+        }
+
+        if (!isCanonicalUuid(uuid)) {
+            //non canonical forms are rare, parse them without polluting the cache
+            return UUID.fromString(uuid);
+        }
+        return parseCanonicalUuid(uuid);
+    }
+
+    //short or canonical form, the only ones mostSignificantBits and leastSignificantBits accept
+    public static boolean isUuid(String uuid) {
+        if (uuid == null) {
+            return false;
+        }
+        if (uuid.length() == SHORT_UUID_LENGTH) {
+            return parseHex(uuid, 0, SHORT_UUID_LENGTH) != NOT_A_SHORT_UUID;
+        }
+        return isCanonicalUuid(uuid);
+    }
+
+    public static long mostSignificantBits(String uuid) {
+        if (uuid.length() == SHORT_UUID_LENGTH) {
+            return ((long) parseHex(uuid, 0, SHORT_UUID_LENGTH) << 32) | BASE_UUID_MOST_SIGNIFICANT_BITS;
+        }
+        return parseHexBits(uuid, 0, LEAST_SIGNIFICANT_BITS_START - 1);
+    }
+
+    public static long leastSignificantBits(String uuid) {
+        if (uuid.length() == SHORT_UUID_LENGTH) {
+            return BASE_UUID_LEAST_SIGNIFICANT_BITS;
+        }
+        return parseHexBits(uuid, LEAST_SIGNIFICANT_BITS_START, UUID_STRING_LENGTH);
+    }
+
+    public static UUID fromShortUuid(int shortUuid) {
+        UUID uuid = shortUuids.get(shortUuid);
+        if (uuid == null) {
+            uuid = new UUID(((long) shortUuid << 32) | BASE_UUID_MOST_SIGNIFICANT_BITS, BASE_UUID_LEAST_SIGNIFICANT_BITS);
+            if (!shortUuids.compareAndSet(shortUuid, null, uuid)) {
+                uuid = shortUuids.get(shortUuid);
+            }
+        }
+        return uuid;
+    }
+
+    public static UUID fromBits(long mostSignificantBits, long leastSignificantBits) {
+        if (leastSignificantBits == BASE_UUID_LEAST_SIGNIFICANT_BITS
+                && (mostSignificantBits & 0xFFFF0000FFFFFFFFL) == BASE_UUID_MOST_SIGNIFICANT_BITS) {
+            return fromShortUuid((int) (mostSignificantBits >>> 32));
+        }
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    public static int parseShortUuid(String uuid) {
+        if (uuid.length() == SHORT_UUID_LENGTH) {
+            return parseHex(uuid, 0, SHORT_UUID_LENGTH);
+        }
+        if (uuid.length() == UUID_STRING_LENGTH
+                && uuid.startsWith(BASE_UUID_PREFIX)
+                && uuid.regionMatches(true, SHORT_UUID_END, BASE_UUID_SUFFIX, 0, BASE_UUID_SUFFIX.length())) {
+            return parseHex(uuid, SHORT_UUID_START, SHORT_UUID_END);
+        }
+        return NOT_A_SHORT_UUID;
+    }
+
+    private static UUID parseCanonicalUuid(String uuid) {
+        String key = uuid.toLowerCase(Locale.US);
+        synchronized (cachedUuids) {
+            UUID cachedUuid = cachedUuids.get(key);
+            if (cachedUuid != null) {
+                return cachedUuid;
+            }
+        }
+        UUID parsedUuid = UUID.fromString(key);
+        synchronized (cachedUuids) {
+            cachedUuids.put(key, parsedUuid);
+        }
+        return parsedUuid;
+    }
+
+    private static boolean isCanonicalUuid(String uuid) {
+        if (uuid.length() != UUID_STRING_LENGTH) {
+            return false;
+        }
+        int nextDash = 0;
+        for (int i = 0; i < UUID_STRING_LENGTH; i++) {
+            char character = uuid.charAt(i);
+            if (nextDash < DASH_POSITIONS.length && i == DASH_POSITIONS[nextDash]) {
+                if (character != '-') {
+                    return false;
+                }
+                nextDash++;
+            } else if (hexDigit(character) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHexBits(String uuid, int start, int end) {
+        long bits = 0;
+        for (int i = start; i < end; i++) {
+            char character = uuid.charAt(i);
+            if (character != '-') {
+                bits = (bits << 4) | hexDigit(character);
+            }
+        }
+        return bits;
+    }
+
+    private static int hexDigit(char character) {
+        return character < HEX_DIGITS.length ? HEX_DIGITS[character] : -1;
+    }
+
+    private static int parseHex(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = hexDigit(value.charAt(i));
+            if (digit < 0) {
+                return NOT_A_SHORT_UUID;
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
+    }
+}
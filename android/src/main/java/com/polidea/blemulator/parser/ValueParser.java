@@ -0,0 +1,157 @@
+package com.polidea.blemulator.parser;
+
+import android.util.Base64;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+//every value carries its own encoding, so payloads already in flight decode correctly after JS
+//switches encodings: number arrays are raw bytes, strings starting with HEX_PREFIX are hex and
+//any other string is Base64
+public class ValueParser {
+    public static final char HEX_PREFIX = '#';
+
+    private static final byte[] EMPTY_VALUE = new byte[0];
+    private static final int NOT_A_DIGIT = -1;
+    private static final int[] HEX_DIGITS = new int[128];
+    private static final int[] BASE64_DIGITS = new int[128];
+    private static final String BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    static {
+        for (int i = 0; i < HEX_DIGITS.length; i++) {
+            HEX_DIGITS[i] = NOT_A_DIGIT;
+            BASE64_DIGITS[i] = NOT_A_DIGIT;
+        }
+        for (int i = 0; i < 10; i++) {
+            HEX_DIGITS['0' + i] = i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_DIGITS['a' + i] = 10 + i;
+            HEX_DIGITS['A' + i] = 10 + i;
+        }
+        for (int i = 0; i < BASE64_ALPHABET.length(); i++) {
+            BASE64_DIGITS[BASE64_ALPHABET.charAt(i)] = i;
+        }
+    }
+
+    public static byte[] parse(ReadableMap source, String key) {
+        if (!source.hasKey(key) || source.isNull(key)) {
+            return null;
+        }
+        if (source.getType(key) == ReadableType.Array) {
+            ReadableArray bytes = source.getArray(key);
+            if (bytes.size() == 0) {
+                return EMPTY_VALUE;
+            }
+            byte[] value = new byte[bytes.size()];
+            parseInto(bytes, value);
+            return value;
+        }
+        return parse(source.getString(key));
+    }
+
+    public static byte[] parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (!isHex(value)) {
+            return Base64.decode(value, Base64.DEFAULT);
+        }
+        if (value.length() % 2 == 0) {
+            throw new IllegalArgumentException("Hex value has odd length: " + (value.length() - 1));
+        }
+        int length = (value.length() - 1) / 2;
+        if (length == 0) {
+            return EMPTY_VALUE;
+        }
+        byte[] parsedValue = new byte[length];
+        parseHexInto(value, parsedValue);
+        return parsedValue;
+    }
+
+    //decodes at most target.length leading bytes into the caller's buffer, returns how many were decoded
+    public static int parsePrefix(ReadableMap source, String key, byte[] target) {
+        if (source.getType(key) == ReadableType.Array) {
+            return parseInto(source.getArray(key), target);
+        }
+        return parseInto(source.getString(key), target);
+    }
+
+    //same as parsePrefix for a hex or Base64 string
+    public static int parseInto(String value, byte[] target) {
+        return isHex(value) ? parseHexInto(value, target) : parseBase64Into(value, target);
+    }
+
+    private static boolean isHex(String value) {
+        return !value.isEmpty() && value.charAt(0) == HEX_PREFIX;
+    }
+
+    private static int parseInto(ReadableArray source, byte[] target) {
+        int length = Math.min(source.size(), target.length);
+        for (int i = 0; i < length; i++) {
+            target[i] = (byte) source.getInt(i);
+        }
+        return length;
+    }
+
+    private static int parseHexInto(String source, byte[] target) {
+        int length = Math.min((source.length() - 1) / 2, target.length);
+        for (int i = 0, character = 1; i < length; i++, character += 2) {
+            int high = digit(HEX_DIGITS, source.charAt(character));
+            int low = digit(HEX_DIGITS, source.charAt(character + 1));
+            if ((high | low) < 0) {
+                throw invalidCharacter(source, character);
+            }
+            target[i] = (byte) ((high << 4) | low);
+        }
+        return length;
+    }
+
+    //decodes whole 4 character groups first, the remainder and padding bit by bit
+    private static int parseBase64Into(String source, byte[] target) {
+        int end = source.length();
+        while (end > 0 && source.charAt(end - 1) == '=') {
+            end--;
+        }
+        int length = 0;
+        int character = 0;
+        while (character + 4 <= end && length + 3 <= target.length) {
+            int group = (digit(BASE64_DIGITS, source.charAt(character)) << 18)
+                    | (digit(BASE64_DIGITS, source.charAt(character + 1)) << 12)
+                    | (digit(BASE64_DIGITS, source.charAt(character + 2)) << 6)
+                    | digit(BASE64_DIGITS, source.charAt(character + 3));
+            if (group < 0) {
+                throw invalidCharacter(source, character);
+            }
+            target[length++] = (byte) (group >> 16);
+            target[length++] = (byte) (group >> 8);
+            target[length++] = (byte) group;
+            character += 4;
+        }
+        int buffer = 0;
+        int bufferedBits = 0;
+        for (; character < end && length < target.length; character++) {
+            int digit = digit(BASE64_DIGITS, source.charAt(character));
+            if (digit < 0) {
+                throw invalidCharacter(source, character);
+            }
+            buffer = ((buffer << 6) | digit) & 0xFFFF;
+            bufferedBits += 6;
+            if (bufferedBits >= 8) {
+                bufferedBits -= 8;
+                target[length++] = (byte) (buffer >> bufferedBits);
+            }
+        }
+        return length;
+    }
+
+    //returns NOT_A_DIGIT for invalid characters, callers check a whole group at once
+    private static int digit(int[] digits, char character) {
+        return character < digits.length ? digits[character] : NOT_A_DIGIT;
+    }
+
+    private static IllegalArgumentException invalidCharacter(String source, int start) {
+        return new IllegalArgumentException("Invalid value character near index " + start + ": " + source);
+    }
+}
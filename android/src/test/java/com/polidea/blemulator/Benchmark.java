@@ -0,0 +1,100 @@
+package com.polidea.blemulator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class Benchmark {
+    public static final int DEFAULT_ROUNDS = 7;
+
+    private Benchmark() {
+    }
+
+    //the fastest round is reported, earlier rounds double as JIT warmup
+    public static long measureNanos(int threadCount, int rounds, final Task task) throws InterruptedException {
+        long bestNanos = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch finish = new CountDownLatch(threadCount);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            for (int thread = 0; thread < threadCount; thread++) {
+                final int threadIndex = thread;
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            task.run(threadIndex);
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            finish.countDown();
+                        }
+                    }
+                }).start();
+            }
+            long startNanos = System.nanoTime();
+            start.countDown();
+            finish.await();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startNanos);
+            if (failure.get() != null) {
+                throw new IllegalStateException("Benchmark task failed", failure.get());
+            }
+        }
+        return bestNanos;
+    }
+
+    public static long measureNanos(int rounds, Task task) throws InterruptedException {
+        return measureNanos(1, rounds, task);
+    }
+
+    public static long measureRetainedBytes(Allocation allocation) {
+        long before = usedHeapBytes();
+        Object retained = allocation.allocate();
+        long after = usedHeapBytes();
+        if (retained.hashCode() == System.identityHashCode(Benchmark.class)) {
+            //keeps the allocation reachable until the heap was measured
+            System.out.print("");
+        }
+        return after - before;
+    }
+
+    //bytes allocated so far by the calling thread, or -1 when the JVM doesn't track it
+    public static long allocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void printRow(Object... columns) {
+        StringBuilder row = new StringBuilder();
+        for (Object column : columns) {
+            row.append(String.format("%-28s", column));
+        }
+        System.out.println(row.toString().trim());
+    }
+
+    private static long usedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public interface Task {
+        void run(int threadIndex) throws InterruptedException;
+    }
+
+    public interface Allocation {
+        Object allocate();
+    }
+}
@@ -0,0 +1,73 @@
+package com.polidea.blemulator;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+//compares the native side of a return call handed to the native modules queue thread, which
+//async methods and the former synchronous dispatch both paid, with synchronous dispatch running
+//it on the calling thread. A single thread executor stands in for the queue thread. The time JS
+//holds async calls in its message queue before flushing them isn't covered, only a device shows it
+public class DispatchLatencyBenchmark {
+    private static final int CALLS = 200000;
+    private static final String METHOD_NAME = "readCharacteristic";
+
+    public static void main(String[] args) throws InterruptedException {
+        final ExecutorService nativeModulesQueue = Executors.newSingleThreadExecutor(new DaemonThreadFactory("native-modules-queue"));
+        Benchmark.printRow("Dispatch", "mean [ns/call]", "p50 [us]", "p99 [us]", "max [us]");
+        run("native modules queue", new Transport() {
+            @Override
+            public void deliver(Runnable returnCall) {
+                nativeModulesQueue.execute(returnCall);
+            }
+        });
+        run("calling thread", new Transport() {
+            @Override
+            public void deliver(Runnable returnCall) {
+                returnCall.run();
+            }
+        });
+        nativeModulesQueue.shutdown();
+    }
+
+    //one call in flight at a time, so every call pays the full hand over instead of riding a busy queue
+    private static void run(String label, final Transport transport) throws InterruptedException {
+        final JsCallHandler callHandler = new JsCallHandler();
+        final Semaphore returned = new Semaphore(0);
+        final JsCallHandler.Callback callback = new JsCallHandler.Callback() {
+            @Override
+            public void invoke(ReadableMap args) {
+                returned.release();
+            }
+        };
+        long nanos = Benchmark.measureNanos(Benchmark.DEFAULT_ROUNDS, new Benchmark.Task() {
+            @Override
+            public void run(int threadIndex) throws InterruptedException {
+                callHandler.getLatencyRecorder().reset();
+                for (int i = 0; i < CALLS; i++) {
+                    final int callId = callHandler.addCallback(METHOD_NAME, null, callback, JsCallHandler.NO_TIMEOUT);
+                    transport.deliver(new Runnable() {
+                        @Override
+                        public void run() {
+                            callHandler.handleReturnCall(callId, null);
+                        }
+                    });
+                    returned.acquire();
+                }
+            }
+        });
+        LatencyHistogram.Snapshot snapshot = callHandler.getLatencyRecorder().getSnapshots().get(METHOD_NAME);
+        callHandler.destroy();
+        Benchmark.printRow(label,
+                String.format("%.1f", (double) nanos / CALLS),
+                snapshot.getP50Micros(),
+                snapshot.getP99Micros(),
+                snapshot.getMaxMicros());
+    }
+
+    private interface Transport {
+        void deliver(Runnable returnCall);
+    }
+}
@@ -0,0 +1,118 @@
+package com.polidea.blemulator;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//compares the int keyed ring in JsCallHandler with the former String keyed HashMap
+//the former map was not thread safe, so the baseline guards it with the smallest possible lock
+//and does the same latency bookkeeping per call, leaving the registry as the only difference
+public class JsCallHandlerBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int CALLS_PER_THREAD = 500000;
+    private static final int IN_FLIGHT_CALLS_PER_THREAD = 32;
+    private static final String METHOD_NAME = "readCharacteristic";
+    private static final JsCallHandler.Callback NO_OP_CALLBACK = new JsCallHandler.Callback() {
+        @Override
+        public void invoke(ReadableMap args) {
+            //only the registry cost is measured
+        }
+    };
+
+    public static void main(String[] args) throws InterruptedException {
+        Benchmark.printRow("threads", "locked HashMap [Mcalls/s]", "JsCallHandler [Mcalls/s]");
+        for (int threadCount : THREAD_COUNTS) {
+            JsCallHandler callHandler = new JsCallHandler();
+            double legacyThroughput = measureThroughput(threadCount, new LockedStringRegistry());
+            double ringThroughput = measureThroughput(threadCount, new RingRegistry(callHandler));
+            callHandler.destroy();
+            Benchmark.printRow(threadCount,
+                    String.format("%.2f", legacyThroughput),
+                    String.format("%.2f", ringThroughput));
+        }
+    }
+
+    private static double measureThroughput(int threadCount, final Registry registry) throws InterruptedException {
+        long nanos = Benchmark.measureNanos(threadCount, Benchmark.DEFAULT_ROUNDS, new Benchmark.Task() {
+            @Override
+            public void run(int threadIndex) {
+                //each caller keeps a window of calls in flight, like a device with queued GATT operations
+                int[] inFlightIds = new int[IN_FLIGHT_CALLS_PER_THREAD];
+                for (int i = 0; i < IN_FLIGHT_CALLS_PER_THREAD; i++) {
+                    inFlightIds[i] = registry.add();
+                }
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    int slot = i % IN_FLIGHT_CALLS_PER_THREAD;
+                    registry.complete(inFlightIds[slot]);
+                    inFlightIds[slot] = registry.add();
+                }
+                for (int id : inFlightIds) {
+                    registry.complete(id);
+                }
+            }
+        });
+        return (double) threadCount * CALLS_PER_THREAD / nanos * 1000;
+    }
+
+    private interface Registry {
+        int add();
+
+        void complete(int id);
+    }
+
+    private static class RingRegistry implements Registry {
+        private final JsCallHandler callHandler;
+
+        RingRegistry(JsCallHandler callHandler) {
+            this.callHandler = callHandler;
+        }
+
+        @Override
+        public int add() {
+            return callHandler.addCallback(METHOD_NAME, null, NO_OP_CALLBACK, JsCallHandler.NO_TIMEOUT);
+        }
+
+        @Override
+        public void complete(int id) {
+            callHandler.handleReturnCall(id, null);
+        }
+    }
+
+    private static class LockedStringRegistry implements Registry {
+        private final Map<String, PendingCall> callbacks = new HashMap<>();
+        private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+        private int nextCallId = 0;
+
+        @Override
+        public int add() {
+            PendingCall pendingCall = new PendingCall(latencyRecorder.getHistogram(METHOD_NAME), NO_OP_CALLBACK);
+            synchronized (callbacks) {
+                int callId = nextCallId++;
+                callbacks.put(Integer.toString(callId), pendingCall);
+                return callId;
+            }
+        }
+
+        @Override
+        public void complete(int id) {
+            PendingCall pendingCall;
+            synchronized (callbacks) {
+                pendingCall = callbacks.remove(Integer.toString(id));
+            }
+            pendingCall.latencyHistogram.record(System.nanoTime() - pendingCall.startNanos);
+            pendingCall.callback.invoke(null);
+        }
+    }
+
+    private static class PendingCall {
+        private final LatencyHistogram latencyHistogram;
+        private final JsCallHandler.Callback callback;
+        private final long startNanos = System.nanoTime();
+
+        PendingCall(LatencyHistogram latencyHistogram, JsCallHandler.Callback callback) {
+            this.latencyHistogram = latencyHistogram;
+            this.callback = callback;
+        }
+    }
+}
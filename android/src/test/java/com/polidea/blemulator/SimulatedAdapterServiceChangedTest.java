@@ -0,0 +1,173 @@
+package com.polidea.blemulator;
+
+import com.polidea.blemulator.containers.DiscoveredGatts;
+import com.polidea.blemulator.containers.GattTable;
+import com.polidea.blemulator.containers.ValueCacheSettings;
+import com.polidea.multiplatformbleadapter.ConnectionOptions;
+import com.polidea.multiplatformbleadapter.ConnectionState;
+import com.polidea.multiplatformbleadapter.Device;
+import com.polidea.multiplatformbleadapter.OnErrorCallback;
+import com.polidea.multiplatformbleadapter.OnEventCallback;
+import com.polidea.multiplatformbleadapter.OnSuccessCallback;
+import com.polidea.multiplatformbleadapter.RefreshGattMoment;
+import com.polidea.multiplatformbleadapter.errors.BleError;
+import com.polidea.multiplatformbleadapter.errors.BleErrorCode;
+import com.polidea.multiplatformbleadapter.utils.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SimulatedAdapterServiceChangedTest {
+    private static final String DEVICE_ID = "AA:BB:CC:DD:EE:FF";
+    private static final String DATABASE_HASH = "0123456789abcdef";
+    private static final UUID SERVICE_UUID = UUID.fromString("0000180d-0000-1000-8000-00805f9b34fb");
+    private static final UUID CHARACTERISTIC_UUID = UUID.fromString("00002a37-0000-1000-8000-00805f9b34fb");
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private SimulatedAdapter adapter;
+    private volatile CountDownLatch rangeDiscoveryFailed;
+
+    @Before
+    public void setUp() {
+        DispatchSettings dispatchSettings = new DispatchSettings();
+        dispatchSettings.setCallbackExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        adapter = new SimulatedAdapter(
+                new AdapterRegistry() {
+                    @Override
+                    public void registerAdapter(@NonNull SimulatedAdapter adapter) {
+                    }
+
+                    @Override
+                    public void deregisterAdapter(@NonNull SimulatedAdapter adapter) {
+                    }
+                },
+                createTransport(),
+                new ValueCacheSettings(),
+                new WritePipelineSettings(),
+                new ScanSettings(),
+                dispatchSettings);
+    }
+
+    @After
+    public void tearDown() {
+        adapter.destroyClient();
+    }
+
+    @Test
+    public void failedPartialRediscoveryRequiresFullDiscovery() throws BleError, InterruptedException {
+        adapter.publishAdapterState(Constants.BluetoothState.POWERED_ON);
+        connect();
+        discover();
+        assertEquals(1, adapter.getServicesForDevice(DEVICE_ID).size());
+
+        rangeDiscoveryFailed = new CountDownLatch(1);
+        adapter.publishServiceChanged(DEVICE_ID, 1, 0xFFFF);
+        assertTrue(rangeDiscoveryFailed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        try {
+            adapter.getServicesForDevice(DEVICE_ID);
+            fail("Services of a failed partial rediscovery are still accessible");
+        } catch (BleError error) {
+            assertEquals(BleErrorCode.ServicesNotDiscovered, error.errorCode);
+        }
+
+        discover();
+        assertEquals(1, adapter.getServicesForDevice(DEVICE_ID).size());
+    }
+
+    private void connect() throws InterruptedException {
+        final CountDownLatch connected = new CountDownLatch(1);
+        adapter.connectToDevice(DEVICE_ID,
+                new ConnectionOptions(false, 0, RefreshGattMoment.ON_CONNECTED, null, 0),
+                new OnSuccessCallback<Device>() {
+                    @Override
+                    public void onSuccess(Device data) {
+                        connected.countDown();
+                    }
+                },
+                new OnEventCallback<ConnectionState>() {
+                    @Override
+                    public void onEvent(ConnectionState data) {
+                    }
+                },
+                failingOnError());
+        assertTrue(connected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        adapter.publishConnectionState(DEVICE_ID, ConnectionState.CONNECTED);
+    }
+
+    private void discover() throws InterruptedException {
+        final CountDownLatch discovered = new CountDownLatch(1);
+        adapter.discoverAllServicesAndCharacteristicsForDevice(DEVICE_ID, "discovery",
+                new OnSuccessCallback<Device>() {
+                    @Override
+                    public void onSuccess(Device data) {
+                        discovered.countDown();
+                    }
+                },
+                failingOnError());
+        assertTrue(discovered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private static OnErrorCallback failingOnError() {
+        return new OnErrorCallback() {
+            @Override
+            public void onError(BleError error) {
+                fail("Unexpected error " + error.reason);
+            }
+        };
+    }
+
+    private static GattTable createGattTable() {
+        return new GattTable.Builder()
+                .addService(DEVICE_ID, 1, SERVICE_UUID)
+                .addCharacteristic(2, CHARACTERISTIC_UUID, 0, false, new byte[0])
+                .build();
+    }
+
+    //answers the calls this test relies on the way JS would, ignores everything else
+    @SuppressWarnings("unchecked")
+    private SimulationTransport createTransport() {
+        return (SimulationTransport) Proxy.newProxyInstance(
+                SimulationTransport.class.getClassLoader(),
+                new Class<?>[]{SimulationTransport.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "connect":
+                                ((OnSuccessCallback<Device>) args[2]).onSuccess(new Device(DEVICE_ID, null));
+                                break;
+                            case "discoverAllGatts":
+                                ((OnSuccessCallback<DiscoveredGatts>) args[3]).onSuccess(new DiscoveredGatts(createGattTable(), DATABASE_HASH));
+                                break;
+                            case "discoverGattsInRange":
+                                ((OnErrorCallback) args[4]).onError(
+                                        new BleError(BleErrorCode.ServicesDiscoveryFailed, "Simulated rediscovery failure", null));
+                                rangeDiscoveryFailed.countDown();
+                                break;
+                        }
+                        return null;
+                    }
+                });
+    }
+}
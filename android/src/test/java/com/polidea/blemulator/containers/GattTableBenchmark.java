@@ -0,0 +1,192 @@
+package com.polidea.blemulator.containers;
+
+import com.polidea.blemulator.Benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+//compares retained memory and id lookups of GattTable with the former layout of one object per
+//attribute held in Integer keyed maps. The legacy objects only carry the fields the adapter
+//models had, without their wrapped BluetoothGatt* objects, so the legacy size is a lower bound
+public class GattTableBenchmark {
+    private static final int DEVICE_COUNT = 200;
+    private static final int SERVICES_PER_DEVICE = 6;
+    private static final int CHARACTERISTICS_PER_SERVICE = 5;
+    private static final int LOOKUPS = 2000000;
+    private static final byte[] VALUE = new byte[20];
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        final UUID[] uuids = createUuids();
+
+        long legacyBytes = Benchmark.measureRetainedBytes(new Benchmark.Allocation() {
+            @Override
+            public Object allocate() {
+                LegacyDevice[] devices = new LegacyDevice[DEVICE_COUNT];
+                for (int device = 0; device < DEVICE_COUNT; device++) {
+                    devices[device] = new LegacyDevice(deviceId(device), device * attributesPerDevice(), uuids);
+                }
+                return devices;
+            }
+        });
+        long tableBytes = Benchmark.measureRetainedBytes(new Benchmark.Allocation() {
+            @Override
+            public Object allocate() {
+                GattTable[] tables = new GattTable[DEVICE_COUNT];
+                for (int device = 0; device < DEVICE_COUNT; device++) {
+                    tables[device] = createTable(deviceId(device), device * attributesPerDevice(), uuids);
+                }
+                return tables;
+            }
+        });
+
+        final LegacyDevice legacyDevice = new LegacyDevice(deviceId(0), 0, uuids);
+        final GattTable table = createTable(deviceId(0), 0, uuids);
+        final int attributeCount = attributesPerDevice();
+        long legacyNanos = Benchmark.measureNanos(Benchmark.DEFAULT_ROUNDS, new Benchmark.Task() {
+            @Override
+            public void run(int threadIndex) {
+                int hash = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    hash += legacyDevice.getCachedCharacteristic(1 + i % attributeCount) != null ? 1 : 0;
+                }
+                sink = hash;
+            }
+        });
+        long tableNanos = Benchmark.measureNanos(Benchmark.DEFAULT_ROUNDS, new Benchmark.Task() {
+            @Override
+            public void run(int threadIndex) {
+                int hash = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    hash += table.getCachedCharacteristic(1 + i % attributeCount) != null ? 1 : 0;
+                }
+                sink = hash;
+            }
+        });
+
+        Benchmark.printRow("Layout", "Retained [B/attribute]", "Id lookup [ns/op]");
+        int fleetAttributes = DEVICE_COUNT * attributeCount;
+        Benchmark.printRow("Integer keyed maps",
+                String.format("%.1f", (double) legacyBytes / fleetAttributes),
+                String.format("%.1f", (double) legacyNanos / LOOKUPS));
+        Benchmark.printRow("GattTable",
+                String.format("%.1f", (double) tableBytes / fleetAttributes),
+                String.format("%.1f", (double) tableNanos / LOOKUPS));
+    }
+
+    //every characteristic has one descriptor
+    private static int attributesPerDevice() {
+        return SERVICES_PER_DEVICE * (1 + 2 * CHARACTERISTICS_PER_SERVICE);
+    }
+
+    private static String deviceId(int device) {
+        return String.format("AA:BB:CC:DD:%02X:%02X", device >> 8, device & 0xFF);
+    }
+
+    private static UUID[] createUuids() {
+        UUID[] uuids = new UUID[attributesPerDevice()];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.nameUUIDFromBytes(new byte[]{(byte) i});
+        }
+        return uuids;
+    }
+
+    private static GattTable createTable(String deviceId, int firstId, UUID[] uuids) {
+        GattTable.Builder builder = new GattTable.Builder();
+        int attribute = 0;
+        for (int service = 0; service < SERVICES_PER_DEVICE; service++) {
+            builder.addService(deviceId, firstId + attribute + 1, uuids[attribute++]);
+            for (int characteristic = 0; characteristic < CHARACTERISTICS_PER_SERVICE; characteristic++) {
+                builder.addCharacteristic(firstId + attribute + 1, uuids[attribute++], 0, false, VALUE);
+                builder.addDescriptor(firstId + attribute + 1, uuids[attribute++], VALUE);
+            }
+        }
+        return builder.build();
+    }
+
+    private static class LegacyDevice {
+        private final Map<UUID, LegacyService> servicesByUuid = new HashMap<>();
+        private final Map<Integer, LegacyService> servicesById = new HashMap<>();
+        private final Map<Integer, LegacyCharacteristic> characteristicsById = new HashMap<>();
+        private final Map<Integer, LegacyDescriptor> descriptorsById = new HashMap<>();
+
+        LegacyDevice(String deviceId, int firstId, UUID[] uuids) {
+            int attribute = 0;
+            for (int serviceIndex = 0; serviceIndex < SERVICES_PER_DEVICE; serviceIndex++) {
+                LegacyService service = new LegacyService(firstId + attribute + 1, uuids[attribute++], deviceId);
+                servicesByUuid.put(service.uuid, service);
+                servicesById.put(service.id, service);
+                for (int characteristicIndex = 0; characteristicIndex < CHARACTERISTICS_PER_SERVICE; characteristicIndex++) {
+                    LegacyCharacteristic characteristic = new LegacyCharacteristic(firstId + attribute + 1, uuids[attribute++], service);
+                    service.characteristicMap.put(characteristic.uuid, characteristic);
+                    characteristicsById.put(characteristic.id, characteristic);
+                    LegacyDescriptor descriptor = new LegacyDescriptor(firstId + attribute + 1, uuids[attribute++], characteristic);
+                    characteristic.descriptorMap.put(descriptor.uuid, descriptor);
+                    descriptorsById.put(descriptor.id, descriptor);
+                }
+            }
+        }
+
+        LegacyCharacteristic getCachedCharacteristic(Integer id) {
+            return characteristicsById.get(id);
+        }
+    }
+
+    private static class LegacyService {
+        private final int id;
+        private final UUID uuid;
+        private final String deviceId;
+        private final Map<UUID, LegacyCharacteristic> characteristicMap = new HashMap<>();
+
+        LegacyService(int id, UUID uuid, String deviceId) {
+            this.id = id;
+            this.uuid = uuid;
+            this.deviceId = deviceId;
+        }
+    }
+
+    private static class LegacyCharacteristic {
+        private final int id;
+        private final UUID uuid;
+        private final int serviceId;
+        private final UUID serviceUuid;
+        private final String deviceId;
+        private final int properties = 0;
+        private final byte[] value = VALUE;
+        private final Map<UUID, LegacyDescriptor> descriptorMap = new HashMap<>();
+        private boolean isNotifying = false;
+        private byte[] cachedValue = null;
+        private long cachedValueTimestampMillis;
+
+        LegacyCharacteristic(int id, UUID uuid, LegacyService service) {
+            this.id = id;
+            this.uuid = uuid;
+            this.serviceId = service.id;
+            this.serviceUuid = service.uuid;
+            this.deviceId = service.deviceId;
+        }
+    }
+
+    private static class LegacyDescriptor {
+        private final int id;
+        private final UUID uuid;
+        private final int characteristicId;
+        private final UUID characteristicUuid;
+        private final int serviceId;
+        private final UUID serviceUuid;
+        private final String deviceId;
+        private final byte[] value = VALUE;
+
+        LegacyDescriptor(int id, UUID uuid, LegacyCharacteristic characteristic) {
+            this.id = id;
+            this.uuid = uuid;
+            this.characteristicId = characteristic.id;
+            this.characteristicUuid = characteristic.uuid;
+            this.serviceId = characteristic.serviceId;
+            this.serviceUuid = characteristic.serviceUuid;
+            this.deviceId = characteristic.deviceId;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.polidea.blemulator.containers;
+
+import com.polidea.blemulator.Benchmark;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+//compares *ForDevice style service and characteristic lookups by UUID string in GattTable
+//with the former maps keyed by uuid.toString().toLowerCase(). Keys are copied for every lookup,
+//since the bridge hands over a new string each call and its hash isn't cached yet
+public class UuidLookupBenchmark {
+    private static final int SERVICE_COUNT = 8;
+    private static final int CHARACTERISTICS_PER_SERVICE = 8;
+    private static final int LOOKUPS = 2000000;
+    private static final String DEVICE_ID = "AA:BB:CC:DD:EE:FF";
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        Benchmark.printRow("UUIDs", "HashMap [ns/op]", "GattTable [ns/op]", "HashMap [B/op]", "GattTable [B/op]");
+        run("16-bit, lowercase", createUuids(true), false);
+        run("16-bit, uppercase", createUuids(true), true);
+        run("128-bit, lowercase", createUuids(false), false);
+        run("128-bit, uppercase", createUuids(false), true);
+    }
+
+    private static void run(String label, UUID[][] uuids, boolean isUpperCase) throws InterruptedException {
+        final char[][][] keys = new char[SERVICE_COUNT][CHARACTERISTICS_PER_SERVICE + 1][];
+        for (int service = 0; service < SERVICE_COUNT; service++) {
+            for (int i = 0; i <= CHARACTERISTICS_PER_SERVICE; i++) {
+                String key = uuids[service][i].toString();
+                keys[service][i] = (isUpperCase ? key.toUpperCase(Locale.US) : key).toCharArray();
+            }
+        }
+        final LegacyDevice legacyDevice = new LegacyDevice(uuids);
+        final DeviceContainer deviceContainer = createDeviceContainer(uuids);
+
+        Lookup legacyLookup = new Lookup() {
+            @Override
+            public Object find(String serviceUuid, String characteristicUuid) {
+                LegacyService service = legacyDevice.getCachedService(serviceUuid);
+                return service.getCachedCharacteristic(characteristicUuid);
+            }
+        };
+        Lookup tableLookup = new Lookup() {
+            @Override
+            public Object find(String serviceUuid, String characteristicUuid) {
+                CachedService service = deviceContainer.getCachedService(serviceUuid);
+                return service.getCachedCharacteristic(characteristicUuid);
+            }
+        };
+
+        Lookup copyOnly = new Lookup() {
+            @Override
+            public Object find(String serviceUuid, String characteristicUuid) {
+                return characteristicUuid;
+            }
+        };
+
+        long[] copy = measure(keys, copyOnly);
+        long[] legacy = measure(keys, legacyLookup);
+        long[] table = measure(keys, tableLookup);
+        Benchmark.printRow(label,
+                String.format("%.1f", (double) (legacy[0] - copy[0]) / LOOKUPS),
+                String.format("%.1f", (double) (table[0] - copy[0]) / LOOKUPS),
+                String.format("%.1f", (double) (legacy[1] - copy[1]) / LOOKUPS),
+                String.format("%.1f", (double) (table[1] - copy[1]) / LOOKUPS));
+    }
+
+    //returns the best time in nanoseconds and the bytes allocated by the last round;
+    //the copyOnly lookup measures the key copies alone, which are subtracted from the other results
+    private static long[] measure(final char[][][] keys, final Lookup lookup) throws InterruptedException {
+        final long[] allocated = new long[1];
+        long nanos = Benchmark.measureNanos(Benchmark.DEFAULT_ROUNDS, new Benchmark.Task() {
+            @Override
+            public void run(int threadIndex) {
+                long allocatedBefore = Benchmark.allocatedBytes();
+                int hash = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    char[][] serviceKeys = keys[i % SERVICE_COUNT];
+                    char[] characteristicKey = serviceKeys[1 + (i / SERVICE_COUNT) % CHARACTERISTICS_PER_SERVICE];
+                    Object found = lookup.find(new String(serviceKeys[0]), new String(characteristicKey));
+                    hash += found != null ? 1 : 0;
+                }
+                allocated[0] = Benchmark.allocatedBytes() - allocatedBefore;
+                sink = hash;
+            }
+        });
+        return new long[]{nanos, allocated[0]};
+    }
+
+    //index 0 is the service UUID, the rest are its characteristics
+    private static UUID[][] createUuids(boolean isShort) {
+        UUID[][] uuids = new UUID[SERVICE_COUNT][CHARACTERISTICS_PER_SERVICE + 1];
+        int shortUuid = 0x1800;
+        for (int service = 0; service < SERVICE_COUNT; service++) {
+            for (int i = 0; i <= CHARACTERISTICS_PER_SERVICE; i++) {
+                uuids[service][i] = isShort
+                        ? UUID.fromString(String.format("0000%04x-0000-1000-8000-00805f9b34fb", shortUuid++))
+                        : UUID.nameUUIDFromBytes(new byte[]{(byte) service, (byte) i});
+            }
+        }
+        return uuids;
+    }
+
+    private static DeviceContainer createDeviceContainer(UUID[][] uuids) {
+        GattTable.Builder builder = new GattTable.Builder();
+        int id = 1;
+        for (UUID[] serviceUuids : uuids) {
+            builder.addService(DEVICE_ID, id++, serviceUuids[0]);
+            for (int i = 1; i < serviceUuids.length; i++) {
+                builder.addCharacteristic(id++, serviceUuids[i], 0, false, new byte[20]);
+            }
+        }
+        DeviceContainer deviceContainer = new DeviceContainer(null, new GattIdIndex());
+        deviceContainer.addGatts(builder.build());
+        return deviceContainer;
+    }
+
+    private interface Lookup {
+        Object find(String serviceUuid, String characteristicUuid);
+    }
+
+    private static class LegacyDevice {
+        private final Map<String, LegacyService> servicesByUuid = new HashMap<>();
+
+        LegacyDevice(UUID[][] uuids) {
+            for (UUID[] serviceUuids : uuids) {
+                LegacyService service = new LegacyService();
+                for (int i = 1; i < serviceUuids.length; i++) {
+                    service.characteristicMap.put(serviceUuids[i].toString().toLowerCase(), new Object());
+                }
+                servicesByUuid.put(serviceUuids[0].toString().toLowerCase(), service);
+            }
+        }
+
+        LegacyService getCachedService(String uuid) {
+            return servicesByUuid.get(uuid.toLowerCase());
+        }
+    }
+
+    private static class LegacyService {
+        private final Map<String, Object> characteristicMap = new HashMap<>();
+
+        Object getCachedCharacteristic(String uuid) {
+            return characteristicMap.get(uuid.toLowerCase());
+        }
+    }
+}
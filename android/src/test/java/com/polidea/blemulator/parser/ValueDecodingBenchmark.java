@@ -0,0 +1,83 @@
+package com.polidea.blemulator.parser;
+
+import com.polidea.blemulator.Benchmark;
+
+import java.util.Base64;
+
+//compares decoding of a default and a maximum ATT MTU sized value. java.util.Base64 stands in for
+//android.util.Base64, which only exists on a device; both decode into a new array per value
+public class ValueDecodingBenchmark {
+    private static final int[] VALUE_LENGTHS = {20, 244};
+    private static final int DECODES = 1000000;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        Benchmark.printRow("Decoding", "Length [B]", "Time [ns/op]", "Allocated [B/op]");
+        for (int length : VALUE_LENGTHS) {
+            byte[] value = new byte[length];
+            for (int i = 0; i < length; i++) {
+                value[i] = (byte) (i * 31);
+            }
+            final String base64 = Base64.getEncoder().encodeToString(value);
+            final String hex = toHex(value);
+            final byte[] buffer = new byte[length];
+
+            run("Base64, new array", length, new Decoder() {
+                @Override
+                public int decode() {
+                    return Base64.getDecoder().decode(base64).length;
+                }
+            });
+            run("Hex, new array", length, new Decoder() {
+                @Override
+                public int decode() {
+                    return ValueParser.parse(hex).length;
+                }
+            });
+            run("Base64, reused buffer", length, new Decoder() {
+                @Override
+                public int decode() {
+                    return ValueParser.parseInto(base64, buffer);
+                }
+            });
+            run("Hex, reused buffer", length, new Decoder() {
+                @Override
+                public int decode() {
+                    return ValueParser.parseInto(hex, buffer);
+                }
+            });
+        }
+    }
+
+    private static void run(String label, int length, final Decoder decoder) throws InterruptedException {
+        final long[] allocated = new long[1];
+        long nanos = Benchmark.measureNanos(Benchmark.DEFAULT_ROUNDS, new Benchmark.Task() {
+            @Override
+            public void run(int threadIndex) {
+                long allocatedBefore = Benchmark.allocatedBytes();
+                int decodedBytes = 0;
+                for (int i = 0; i < DECODES; i++) {
+                    decodedBytes += decoder.decode();
+                }
+                allocated[0] = Benchmark.allocatedBytes() - allocatedBefore;
+                sink = decodedBytes;
+            }
+        });
+        Benchmark.printRow(label, length,
+                String.format("%.1f", (double) nanos / DECODES),
+                String.format("%.1f", (double) allocated[0] / DECODES));
+    }
+
+    private static String toHex(byte[] value) {
+        StringBuilder hex = new StringBuilder().append(ValueParser.HEX_PREFIX);
+        for (byte b : value) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    private interface Decoder {
+        int decode();
+    }
+}
@@ -1,7 +1,8 @@
 import { SimulationManager } from './internal/simulation-manager';
 import { SimulatedPeripheral } from './simulated-peripheral';
-import { Bridge } from './internal/bridge';
-import { AdapterState } from './types';
+import { Bridge, MethodCallBatchingOptions, LatencyStatistics, WritePipelineOptions, ScanThrottlingOptions, ScanFilterOptions } from './internal/bridge';
+import { ValueEncoding } from './internal/value-codec';
+import { AdapterState, UUID } from './types';
 
 class BlemulatorInstance {
     private bridge: Bridge
@@ -17,6 +18,66 @@ class BlemulatorInstance {
         return this.bridge.simulate()
     }
 
+    setMethodCallBatching(enabled: boolean, options?: MethodCallBatchingOptions) {
+        this.bridge.setMethodCallBatching(enabled, options)
+    }
+
+    setReturnCallCoalescing(enabled: boolean) {
+        this.bridge.setReturnCallCoalescing(enabled)
+    }
+
+    setSynchronousDispatch(enabled: boolean): Promise<void> {
+        return this.bridge.setSynchronousDispatch(enabled)
+    }
+
+    setScanResultBatching(enabled: boolean) {
+        this.bridge.setScanResultBatching(enabled)
+    }
+
+    setScanReportDelay(reportDelayMillis: number) {
+        this.bridge.setScanReportDelay(reportDelayMillis)
+    }
+
+    setScanThrottling(options: ScanThrottlingOptions) {
+        this.bridge.setScanThrottling(options)
+    }
+
+    setEagerAdvertisementDecoding(enabled: boolean) {
+        this.bridge.setEagerAdvertisementDecoding(enabled)
+    }
+
+    setValueEncoding(encoding: ValueEncoding) {
+        this.bridge.setValueEncoding(encoding)
+    }
+
+    setScanFilters(options: ScanFilterOptions) {
+        this.bridge.setScanFilters(options)
+    }
+
+    setNotificationBatching(enabled: boolean) {
+        this.bridge.setNotificationBatching(enabled)
+    }
+
+    setCallTimeout(timeoutMillis: number) {
+        this.bridge.setCallTimeout(timeoutMillis)
+    }
+
+    getLatencyStatistics(): Promise<LatencyStatistics> {
+        return this.bridge.getLatencyStatistics()
+    }
+
+    resetLatencyStatistics() {
+        this.bridge.resetLatencyStatistics()
+    }
+
+    setCharacteristicValueCacheTtl(characteristicUuid: UUID, ttlMillis: number) {
+        this.bridge.setCharacteristicValueCacheTtl(characteristicUuid, ttlMillis)
+    }
+
+    setWritePipelineOptions(options: WritePipelineOptions) {
+        this.bridge.setWritePipelineOptions(options)
+    }
+
     addPeripheral(peripheral: SimulatedPeripheral): void {
         this.manager.addPeripheral(peripheral)
     }
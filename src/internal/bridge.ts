@@ -4,24 +4,78 @@ import { ScanResult } from "../scan-result";
 import { SimulationManager } from "./simulation-manager";
 import { UUID, ConnectionState, AdapterState, Base64 } from "../types";
 import { SimulatedService } from "../simulated-service";
-import { TransferCharacteristic, mapToTransferService } from "./internal-types";
+import { TransferCharacteristic, TransferDescriptor, mapToTransferService } from "./internal-types";
 import { SimulatedPeripheral } from "../simulated-peripheral";
+import { ValueCodec, ValueEncoding, EncodedValue } from "./value-codec";
 
 const _METHOD_CALL_EVENT = "MethodCall"
+const _METHOD_CALL_BATCH_EVENT = "MethodCallBatch"
+const _NO_CALLBACK_ID = -1
+type ReturnValue = { value?: Object, error?: SimulatedBleError, databaseHash?: string }
+
+type EncodedTransfer<T extends { value: Base64 | null }> = Omit<T, "value"> & { value: EncodedValue | null }
+
+type EncodedScanResult = Omit<ScanResult, "manufacturerData" | "serviceData"> & {
+    manufacturerData?: EncodedValue,
+    serviceData?: Map<UUID, Base64> | { [uuid: string]: EncodedValue }
+}
+
+interface ReturnCall {
+    callbackId: number
+    args: ReturnValue
+}
+
 interface BlemulatorModuleInterface {
-    handleReturnCall(callbackId: string, returnValue: { value?: Object, error?: SimulatedBleError }): void
-    addScanResult(scanResult: ScanResult | null, error: SimulatedBleError | null): void
+    handleReturnCall(callbackId: number, returnValue: ReturnValue): void
+    handleReturnCalls(returnCalls: Array<ReturnCall>): void
+    addScanResult(scanResult: EncodedScanResult | null, error: SimulatedBleError | null): void
+    addScanResults(scanResults: Array<EncodedScanResult>): void
+    setScanReportDelay(reportDelayMillis: number): void
+    setScanThrottling(minIntervalMillis: number, rssiSmoothingFactor: number, maxTrackedDevices: number): void
+    setEagerAdvertisementDecoding(enabled: boolean): void
+    setScanFilters(manufacturerIds: Array<number> | null, serviceDataPrefixes: { [uuid: string]: EncodedValue } | null): void
     publishConnectionState(peripheralId: string, connectionState: string): void
     publishAdapterState(state: String): void
-    publishCharacteristicNotification(transactionId: string, characteristic: TransferCharacteristic | null, error: SimulatedBleError | null): void
+    publishServiceChanged(peripheralId: string, startHandle: number, endHandle: number): void
+    publishCharacteristicNotification(transactionId: string, characteristic: EncodedTransfer<TransferCharacteristic> | null, error: SimulatedBleError | null): void
+    setMethodCallBatching(enabled: boolean, maxBatchSize: number, maxDelayMillis: number): void
+    setCallTimeout(timeoutMillis: number): void
+    getLatencyStatistics(): Promise<LatencyStatistics>
+    resetLatencyStatistics(): void
+    setCharacteristicValueCacheTtl(characteristicUuid: UUID, ttlMillis: number): void
+    setWritePipelineOptions(writeWithoutResponseCredits: number, writeWithResponseWindow: number): void
+    publishCharacteristicNotifications(notifications: Array<TransferNotification>): void
+    dispatchSynchronously(methodName: keyof SimulationEventSink, args: Array<any>): boolean
+    awaitQueuedCalls(): Promise<void>
     simulate(): Promise<void>
 }
 
 const blemulatorModule: BlemulatorModuleInterface & EventSubscriptionVendor = NativeModules.Blemulator;
 
+type SimulationEventSink = Pick<BlemulatorModuleInterface,
+    "handleReturnCall" | "handleReturnCalls" | "addScanResult" | "addScanResults" | "publishAdapterState" |
+    "publishConnectionState" | "publishServiceChanged" | "publishCharacteristicNotification" |
+    "publishCharacteristicNotifications">
+
+const synchronousEventSink: SimulationEventSink = {
+    handleReturnCall: (...args) => { blemulatorModule.dispatchSynchronously("handleReturnCall", args) },
+    handleReturnCalls: (...args) => { blemulatorModule.dispatchSynchronously("handleReturnCalls", args) },
+    addScanResult: (...args) => { blemulatorModule.dispatchSynchronously("addScanResult", args) },
+    addScanResults: (...args) => { blemulatorModule.dispatchSynchronously("addScanResults", args) },
+    publishAdapterState: (...args) => { blemulatorModule.dispatchSynchronously("publishAdapterState", args) },
+    publishConnectionState: (...args) => { blemulatorModule.dispatchSynchronously("publishConnectionState", args) },
+    publishServiceChanged: (...args) => { blemulatorModule.dispatchSynchronously("publishServiceChanged", args) },
+    publishCharacteristicNotification: (...args) => {
+        blemulatorModule.dispatchSynchronously("publishCharacteristicNotification", args)
+    },
+    publishCharacteristicNotifications: (...args) => {
+        blemulatorModule.dispatchSynchronously("publishCharacteristicNotifications", args)
+    },
+}
+
 interface MethodCallArguments {
     methodName: string
-    callbackId: string
+    callbackId: number
     arguments: Object
 }
 
@@ -42,6 +96,7 @@ enum MethodName {
     REQUEST_MTU = "requestMtu",
     REQUEST_CONNECTION_PRIORITY = "requestConnectionPriority",
     DISCOVERY = "discovery",
+    DISCOVER_GATTS_IN_RANGE = "discoverGattsInRange",
     READ_CHARACTERISTIC = "readCharacteristic",
     READ_CHARACTERISTIC_FOR_SERVICE = "readCharacteristicForService",
     READ_CHARACTERISTIC_FOR_DEVICE = "readCharacteristicForDevice",
@@ -62,18 +117,79 @@ enum MethodName {
     CANCEL_TRANSACTION = "cancelTransaction"
 }
 
+export interface MethodLatencyStatistics {
+    count: number
+    p50Micros: number
+    p90Micros: number
+    p99Micros: number
+    maxMicros: number
+}
+
+export type LatencyStatistics = { [methodName: string]: MethodLatencyStatistics }
+
+export interface MethodCallBatchingOptions {
+    maxBatchSize?: number
+    maxDelayMillis?: number
+}
+
+const DEFAULT_MAX_BATCH_SIZE = 64
+const DEFAULT_MAX_BATCH_DELAY_MILLIS = 2
+
+interface TransferNotification {
+    transactionId: string,
+    characteristicId: number,
+    value: EncodedValue | null,
+    error: SimulatedBleError | null
+}
+
+export interface ScanThrottlingOptions {
+    minIntervalMillis: number
+    rssiSmoothingFactor?: number
+    maxTrackedDevices?: number
+}
+
+const DEFAULT_RSSI_SMOOTHING_FACTOR = 0.25
+const DEFAULT_MAX_TRACKED_DEVICES = 4096
+
+export interface ScanFilterOptions {
+    manufacturerIds?: Array<number>
+    serviceDataPrefixes?: { [uuid: string]: Base64 }
+}
+
+export interface WritePipelineOptions {
+    writeWithoutResponseCredits?: number
+    writeWithResponseWindow?: number
+}
+
+const LOCAL_ACKNOWLEDGEMENT_DISABLED = 0
+const UNLIMITED_WRITE_WITH_RESPONSE_WINDOW = 0
+
 export class Bridge {
     private emitterSubscription: EmitterSubscription;
+    private batchEmitterSubscription: EmitterSubscription;
     private manager: SimulationManager
     private blemulatorModule: BlemulatorModuleInterface
+    private isReturnCallCoalescingEnabled: boolean = false
+    private pendingReturnCalls: Array<ReturnCall> = []
+    private isNotificationBatchingEnabled: boolean = false
+    private pendingNotifications: Array<TransferNotification> = []
+    private isScanResultBatchingEnabled: boolean = false
+    private pendingScanResults: Array<EncodedScanResult> = []
+    private valueCodec: ValueCodec = new ValueCodec()
+    private eventSink: SimulationEventSink = blemulatorModule
+    private dispatchModeChange: number = 0
 
     constructor(manager: SimulationManager) {
         this.manager = manager
         this.blemulatorModule = blemulatorModule
 
         this.setupConnectionStatePublisher()
+        this.manager.setServiceChangedPublisher((peripheralId, startHandle, endHandle) => {
+            this.flushPendingTransfers()
+            this.eventSink.publishServiceChanged(peripheralId, startHandle, endHandle)
+        })
         this.manager.setNotificationPublisher((transactionId, characteristic, error) => {
-            blemulatorModule.publishCharacteristicNotification(transactionId, characteristic, error ? error : null)
+            this.publishNotification(transactionId, characteristic, error ? error : null)
         })
 
         const emitter: NativeEventEmitter = new NativeEventEmitter(blemulatorModule)
@@ -81,6 +197,10 @@ export class Bridge {
             _METHOD_CALL_EVENT,
             (args: MethodCallArguments) => { this.handleMethodCall(args) }
         )
+        this.batchEmitterSubscription = emitter.addListener(
+            _METHOD_CALL_BATCH_EVENT,
+            (calls: Array<MethodCallArguments>) => { calls.forEach((args) => this.handleMethodCall(args)) }
+        )
     }
 
     private handleMethodCall(args: MethodCallArguments) {
@@ -119,6 +239,9 @@ export class Bridge {
             case MethodName.DISCOVERY:
                 this.discovery(args)
                 break
+            case MethodName.DISCOVER_GATTS_IN_RANGE:
+                this.discoverGattsInRange(args)
+                break
             case MethodName.IS_DEVICE_CONNECTED:
                 this.isDeviceConnected(args)
                 break
@@ -194,15 +317,223 @@ export class Bridge {
         return blemulatorModule.simulate()
     }
 
+    setMethodCallBatching(enabled: boolean, options?: MethodCallBatchingOptions) {
+        blemulatorModule.setMethodCallBatching(
+            enabled,
+            options?.maxBatchSize ?? DEFAULT_MAX_BATCH_SIZE,
+            options?.maxDelayMillis ?? DEFAULT_MAX_BATCH_DELAY_MILLIS
+        )
+    }
+
+    setCallTimeout(timeoutMillis: number) {
+        blemulatorModule.setCallTimeout(timeoutMillis)
+    }
+
+    getLatencyStatistics(): Promise<LatencyStatistics> {
+        return blemulatorModule.getLatencyStatistics()
+    }
+
+    resetLatencyStatistics() {
+        blemulatorModule.resetLatencyStatistics()
+    }
+
+    setCharacteristicValueCacheTtl(characteristicUuid: UUID, ttlMillis: number) {
+        blemulatorModule.setCharacteristicValueCacheTtl(characteristicUuid, ttlMillis)
+    }
+
+    setWritePipelineOptions(options: WritePipelineOptions) {
+        blemulatorModule.setWritePipelineOptions(
+            options.writeWithoutResponseCredits !== undefined
+                ? options.writeWithoutResponseCredits
+                : LOCAL_ACKNOWLEDGEMENT_DISABLED,
+            options.writeWithResponseWindow !== undefined
+                ? options.writeWithResponseWindow
+                : UNLIMITED_WRITE_WITH_RESPONSE_WINDOW
+        )
+    }
+
+    setScanResultBatching(enabled: boolean) {
+        this.isScanResultBatchingEnabled = enabled
+        if (!enabled) {
+            this.flushScanResults()
+        }
+    }
+
+    setScanReportDelay(reportDelayMillis: number) {
+        blemulatorModule.setScanReportDelay(reportDelayMillis)
+    }
+
+    setScanThrottling(options: ScanThrottlingOptions) {
+        blemulatorModule.setScanThrottling(
+            options.minIntervalMillis,
+            options.rssiSmoothingFactor !== undefined ? options.rssiSmoothingFactor : DEFAULT_RSSI_SMOOTHING_FACTOR,
+            options.maxTrackedDevices !== undefined ? options.maxTrackedDevices : DEFAULT_MAX_TRACKED_DEVICES
+        )
+    }
+
+    setEagerAdvertisementDecoding(enabled: boolean) {
+        blemulatorModule.setEagerAdvertisementDecoding(enabled)
+    }
+
+    setScanFilters(options: ScanFilterOptions) {
+        const serviceDataPrefixes = this.valueCodec.encodeServiceData(options.serviceDataPrefixes)
+        blemulatorModule.setScanFilters(
+            options.manufacturerIds ? options.manufacturerIds : null,
+            serviceDataPrefixes && !(serviceDataPrefixes instanceof Map) ? serviceDataPrefixes : null
+        )
+    }
+
+    setValueEncoding(encoding: ValueEncoding) {
+        this.valueCodec.setEncoding(encoding)
+    }
+
+    private encodeTransfer<T extends { value: Base64 | null }>(transfer: T): EncodedTransfer<T> {
+        return { ...transfer, value: this.valueCodec.encode(transfer.value) }
+    }
+
+    private encodeScanResult(scanResult: ScanResult): EncodedScanResult {
+        return {
+            ...scanResult,
+            manufacturerData: this.valueCodec.encode(scanResult.manufacturerData),
+            serviceData: this.valueCodec.encodeServiceData(scanResult.serviceData)
+        }
+    }
+
+    private addScanResult(scanResult: ScanResult | null, error: SimulatedBleError | null) {
+        if (!this.isScanResultBatchingEnabled || scanResult === null) {
+            this.flushPendingTransfers()
+            this.eventSink.addScanResult(scanResult ? this.encodeScanResult(scanResult) : null, error)
+            return
+        }
+        this.flushReturnCalls()
+        this.flushNotifications()
+        if (this.pendingScanResults.length === 0) {
+            setImmediate(() => this.flushScanResults())
+        }
+        this.pendingScanResults.push(this.encodeScanResult(scanResult))
+    }
+
+    private flushScanResults() {
+        if (this.pendingScanResults.length === 0) {
+            return
+        }
+        const scanResults = this.pendingScanResults
+        this.pendingScanResults = []
+        this.eventSink.addScanResults(scanResults)
+    }
+
+    setNotificationBatching(enabled: boolean) {
+        this.isNotificationBatchingEnabled = enabled
+        if (!enabled) {
+            this.flushNotifications()
+        }
+    }
+
+    private publishNotification(
+        transactionId: string,
+        characteristic: TransferCharacteristic | null,
+        error: SimulatedBleError | null
+    ) {
+        if (!this.isNotificationBatchingEnabled || characteristic === null) {
+            this.flushPendingTransfers()
+            this.eventSink.publishCharacteristicNotification(
+                transactionId,
+                characteristic ? this.encodeTransfer(characteristic) : null,
+                error
+            )
+            return
+        }
+        this.flushReturnCalls()
+        this.flushScanResults()
+        if (this.pendingNotifications.length === 0) {
+            setImmediate(() => this.flushNotifications())
+        }
+        this.pendingNotifications.push({
+            transactionId: transactionId,
+            characteristicId: characteristic.id,
+            value: this.valueCodec.encode(characteristic.value),
+            error: null
+        })
+    }
+
+    private flushNotifications() {
+        if (this.pendingNotifications.length === 0) {
+            return
+        }
+        const notifications = this.pendingNotifications
+        this.pendingNotifications = []
+        this.eventSink.publishCharacteristicNotifications(notifications)
+    }
+
+    async setSynchronousDispatch(enabled: boolean) {
+        const dispatchModeChange = ++this.dispatchModeChange
+        this.flushPendingTransfers()
+        if (!enabled) {
+            //synchronous calls have already run when they return, later async ones can't overtake them
+            this.eventSink = blemulatorModule
+            return
+        }
+        //synchronous calls run right away and would overtake async ones still queued, so events keep
+        //going async until native has run every queued call
+        await blemulatorModule.awaitQueuedCalls()
+        if (dispatchModeChange === this.dispatchModeChange) {
+            this.flushPendingTransfers()
+            this.eventSink = synchronousEventSink
+        }
+    }
+
+    setReturnCallCoalescing(enabled: boolean) {
+        this.isReturnCallCoalescingEnabled = enabled
+        if (!enabled) {
+            this.flushReturnCalls()
+        }
+    }
+
+    private returnCall(callbackId: number, returnValue: ReturnValue) {
+        if (callbackId === _NO_CALLBACK_ID) {
+            return
+        }
+        if (!this.isReturnCallCoalescingEnabled) {
+            this.flushPendingTransfers()
+            this.eventSink.handleReturnCall(callbackId, returnValue)
+            return
+        }
+        this.flushScanResults()
+        this.flushNotifications()
+        if (this.pendingReturnCalls.length === 0) {
+            setImmediate(() => this.flushReturnCalls())
+        }
+        this.pendingReturnCalls.push({ callbackId: callbackId, args: returnValue })
+    }
+
+    private flushReturnCalls() {
+        if (this.pendingReturnCalls.length === 0) {
+            return
+        }
+        const returnCalls = this.pendingReturnCalls
+        this.pendingReturnCalls = []
+        this.eventSink.handleReturnCalls(returnCalls)
+    }
+
+    //at most one buffer holds anything at a time, so flushing all of them keeps the production order
+    private flushPendingTransfers() {
+        this.flushScanResults()
+        this.flushNotifications()
+        this.flushReturnCalls()
+    }
+
     private createClient(args: MethodCallArguments) {
-        this.manager.setAdapterStatePublisher((state: AdapterState) => { blemulatorModule.publishAdapterState(state) })
-        blemulatorModule.handleReturnCall(args.callbackId, {})
+        this.manager.setAdapterStatePublisher((state: AdapterState) => {
+            this.flushPendingTransfers()
+            this.eventSink.publishAdapterState(state)
+        })
+        this.returnCall(args.callbackId, {})
     }
 
     private destroyClient(args: MethodCallArguments) {
         this.manager.setAdapterStatePublisher()
         this.manager.clearState()
-        blemulatorModule.handleReturnCall(args.callbackId, {})
+        this.returnCall(args.callbackId, {})
     }
 
     private async enable(args: MethodCallArguments) {
@@ -212,7 +543,7 @@ export class Bridge {
             }
         }
         const error = await this.manager.enable(enableArgs.arguments.transactionId)
-        blemulatorModule.handleReturnCall(args.callbackId, { error: error })
+        this.returnCall(args.callbackId, { error: error })
     }
 
     private async disable(args: MethodCallArguments) {
@@ -222,7 +553,7 @@ export class Bridge {
             }
         }
         const error = await this.manager.disable(disableArgs.arguments.transactionId)
-        blemulatorModule.handleReturnCall(args.callbackId, { error: error })
+        this.returnCall(args.callbackId, { error: error })
     }
 
     private startScan(args: MethodCallArguments) {
@@ -237,14 +568,14 @@ export class Bridge {
             scanArgs.arguments.filteredUuids,
             scanArgs.arguments.scanMode,
             scanArgs.arguments.callbackType,
-            (scanResult, error) => { blemulatorModule.addScanResult(scanResult, error ? error : null) }
+            (scanResult, error) => { this.addScanResult(scanResult, error ? error : null) }
         )
-        blemulatorModule.handleReturnCall(args.callbackId, { error: error })
+        this.returnCall(args.callbackId, { error: error })
     }
 
     private stopScan(args: MethodCallArguments) {
         this.manager.stopScan()
-        blemulatorModule.handleReturnCall(args.callbackId, {})
+        this.returnCall(args.callbackId, {})
     }
 
     private getKnownDevices(args: MethodCallArguments) {
@@ -254,7 +585,7 @@ export class Bridge {
             }
         }
         const result: Array<SimulatedPeripheral> = this.manager.getKnownDevices(getKnownDevicesArgs.arguments.deviceIds)
-        blemulatorModule.handleReturnCall(args.callbackId, {
+        this.returnCall(args.callbackId, {
             value: result.map(
                 (peripheral) => {
                     return {
@@ -273,7 +604,7 @@ export class Bridge {
             }
         }
         const value = this.manager.getConnectedDevices(getConnectedDevicesArguments.arguments.serviceUuids)
-        blemulatorModule.handleReturnCall(args.callbackId, {
+        this.returnCall(args.callbackId, {
             value: value.map((peripheral) => {
                 return {
                     id: peripheral.id,
@@ -293,9 +624,9 @@ export class Bridge {
             connectArgs.arguments.identifier, connectArgs.arguments.requestMtu
         )
         if (connectResult instanceof SimulatedBleError) {
-            blemulatorModule.handleReturnCall(args.callbackId, { error: connectResult })
+            this.returnCall(args.callbackId, { error: connectResult })
         } else {
-            blemulatorModule.handleReturnCall(args.callbackId, {
+            this.returnCall(args.callbackId, {
                 value: {
                     id: connectResult.id,
                     name: connectResult.name
@@ -307,7 +638,7 @@ export class Bridge {
     private async disconnect(args: MethodCallArguments) {
         const disconnectArgs = args as MethodCallArguments & { arguments: { identifier: string } }
         const error = await this.manager.disconnect(disconnectArgs.arguments.identifier)
-        blemulatorModule.handleReturnCall(args.callbackId, { error: error })
+        this.returnCall(args.callbackId, { error: error })
     }
 
     private async isDeviceConnected(args: MethodCallArguments) {
@@ -329,9 +660,9 @@ export class Bridge {
             readRssiArgs.arguments.transactionId
         )
         if (result instanceof SimulatedBleError) {
-            blemulatorModule.handleReturnCall(args.callbackId, { error: result })
+            this.returnCall(args.callbackId, { error: result })
         } else {
-            blemulatorModule.handleReturnCall(args.callbackId, {
+            this.returnCall(args.callbackId, {
                 value: {
                     id: result.id,
                     name: result.name,
@@ -356,9 +687,9 @@ export class Bridge {
                 requestConnectionPriorityArgs.arguments.transactionId
             )
         if (requestConnectionPriorityResult instanceof SimulatedBleError) {
-            blemulatorModule.handleReturnCall(args.callbackId, { error: requestConnectionPriorityResult })
+            this.returnCall(args.callbackId, { error: requestConnectionPriorityResult })
         } else {
-            blemulatorModule.handleReturnCall(args.callbackId, {
+            this.returnCall(args.callbackId, {
                 value: {
                     id: requestConnectionPriorityResult.id,
                     name: requestConnectionPriorityResult.name
@@ -388,7 +719,8 @@ export class Bridge {
         const discoveryArgs = args as MethodCallArguments & {
             arguments: {
                 identifier: string,
-                transactionId: string
+                transactionId: string,
+                cachedDatabaseHash?: string
             }
         }
         const discoveryResult = await this.manager.discovery(
@@ -396,10 +728,38 @@ export class Bridge {
             discoveryArgs.arguments.transactionId
         )
         if (discoveryResult instanceof SimulatedBleError) {
-            blemulatorModule.handleReturnCall(args.callbackId, { error: discoveryResult })
+            this.returnCall(args.callbackId, { error: discoveryResult })
+            return
+        }
+        const databaseHash = this.manager.getDatabaseHash(discoveryArgs.arguments.identifier)
+        if (databaseHash !== undefined && databaseHash === discoveryArgs.arguments.cachedDatabaseHash) {
+            this.returnCall(args.callbackId, { databaseHash: databaseHash })
         } else {
-            blemulatorModule.handleReturnCall(args.callbackId, {
-                value: discoveryResult.map((service: SimulatedService) => mapToTransferService(service, discoveryArgs.arguments.identifier))
+            this.returnCall(args.callbackId, {
+                value: discoveryResult.map((service: SimulatedService) => mapToTransferService(service, discoveryArgs.arguments.identifier)),
+                databaseHash: databaseHash
+            })
+        }
+    }
+
+    private discoverGattsInRange(args: MethodCallArguments) {
+        const discoverGattsInRangeArgs = args as MethodCallArguments & {
+            arguments: {
+                identifier: string,
+                startHandle: number,
+                endHandle: number
+            }
+        }
+        const discoveryResult = this.manager.discoverGattsInRange(
+            discoverGattsInRangeArgs.arguments.identifier,
+            discoverGattsInRangeArgs.arguments.startHandle,
+            discoverGattsInRangeArgs.arguments.endHandle
+        )
+        if (discoveryResult instanceof SimulatedBleError) {
+            this.returnCall(args.callbackId, { error: discoveryResult })
+        } else {
+            this.returnCall(args.callbackId, {
+                value: discoveryResult.map((service: SimulatedService) => mapToTransferService(service, discoverGattsInRangeArgs.arguments.identifier))
             })
         }
     }
@@ -413,7 +773,7 @@ export class Bridge {
                 readCharacteristicArgs.arguments.characteristicId,
                 readCharacteristicArgs.arguments.transactionId
             )
-        this.callbackErrorOrValue(args.callbackId, readCharacteristicResult)
+        this.callbackErrorOrTransfer(args.callbackId, readCharacteristicResult)
     }
 
     private async readCharacteristicForService(args: MethodCallArguments) {
@@ -426,7 +786,7 @@ export class Bridge {
                 readCharacteristicForServiceArgs.arguments.characteristicUuid,
                 readCharacteristicForServiceArgs.arguments.transactionId
             )
-        this.callbackErrorOrValue(args.callbackId, readCharacteristicForServiceResult)
+        this.callbackErrorOrTransfer(args.callbackId, readCharacteristicForServiceResult)
     }
 
     private async readCharacteristicForDevice(args: MethodCallArguments) {
@@ -440,7 +800,7 @@ export class Bridge {
                 readCharacteristicForDeviceArgs.arguments.characteristicUuid,
                 readCharacteristicForDeviceArgs.arguments.transactionId
             )
-        this.callbackErrorOrValue(args.callbackId, readCharacteristicForDeviceResult)
+        this.callbackErrorOrTransfer(args.callbackId, readCharacteristicForDeviceResult)
     }
 
     private async writeCharacteristic(args: MethodCallArguments) {
@@ -460,7 +820,7 @@ export class Bridge {
                 writeCharacteristicArgs.arguments.transactionId
             )
 
-        this.callbackErrorOrValue(args.callbackId, writeCharacteristicResult)
+        this.callbackErrorOrTransfer(args.callbackId, writeCharacteristicResult)
     }
 
     private async writeCharacteristicForService(args: MethodCallArguments) {
@@ -481,7 +841,7 @@ export class Bridge {
                 writeCharacteristicForServiceArgs.arguments.withResponse,
                 writeCharacteristicForServiceArgs.arguments.transactionId
             )
-        this.callbackErrorOrValue(args.callbackId, writeCharacteristicForServiceResult)
+        this.callbackErrorOrTransfer(args.callbackId, writeCharacteristicForServiceResult)
     }
 
     private async writeCharacteristicForDevice(args: MethodCallArguments) {
@@ -504,7 +864,7 @@ export class Bridge {
                 writeCharacteristicForDeviceArgs.arguments.withResponse,
                 writeCharacteristicForDeviceArgs.arguments.transactionId
             )
-        this.callbackErrorOrValue(args.callbackId, writeCharacteristicForDeviceResult)
+        this.callbackErrorOrTransfer(args.callbackId, writeCharacteristicForDeviceResult)
     }
 
     private async monitorCharacteristic(args: MethodCallArguments) {
@@ -518,7 +878,7 @@ export class Bridge {
             monitorCharacteristicArgs.arguments.characteristicId,
             monitorCharacteristicArgs.arguments.transactionId
         )
-        blemulatorModule.handleReturnCall(args.callbackId, {})
+        this.returnCall(args.callbackId, {})
     }
 
     private async monitorCharacteristicForService(args: MethodCallArguments) {
@@ -534,7 +894,7 @@ export class Bridge {
             monitorCharacteristicForServiceArgs.arguments.characteristicUuid,
             monitorCharacteristicForServiceArgs.arguments.transactionId
         )
-        blemulatorModule.handleReturnCall(args.callbackId, {})
+        this.returnCall(args.callbackId, {})
     }
 
     private async monitorCharacteristicForDevice(args: MethodCallArguments) {
@@ -552,7 +912,7 @@ export class Bridge {
             monitorCharacteristicForDeviceArgs.arguments.characteristicUuid,
             monitorCharacteristicForDeviceArgs.arguments.transactionId
         )
-        blemulatorModule.handleReturnCall(args.callbackId, {})
+        this.returnCall(args.callbackId, {})
     }
 
     private async readDescriptor(args: MethodCallArguments) {
@@ -566,7 +926,7 @@ export class Bridge {
             readDescriptorArgs.arguments.descriptorId,
             readDescriptorArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, readDescriptorResult)
+        this.callbackErrorOrTransfer(args.callbackId, readDescriptorResult)
     }
 
     private async readDescriptorForCharacteristic(args: MethodCallArguments) {
@@ -582,7 +942,7 @@ export class Bridge {
             readDescriptorForCharacteristicArgs.arguments.descriptorUuid,
             readDescriptorForCharacteristicArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, readDescriptorForCharacteristicResult)
+        this.callbackErrorOrTransfer(args.callbackId, readDescriptorForCharacteristicResult)
     }
 
     private async readDescriptorForService(args: MethodCallArguments) {
@@ -600,7 +960,7 @@ export class Bridge {
             readDescriptorForServiceArgs.arguments.descriptorUuid,
             readDescriptorForServiceArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, readDescriptorForServiceResult)
+        this.callbackErrorOrTransfer(args.callbackId, readDescriptorForServiceResult)
     }
 
     private async readDescriptorForDevice(args: MethodCallArguments) {
@@ -620,7 +980,7 @@ export class Bridge {
             readDescriptorForDeviceArgs.arguments.descriptorUuid,
             readDescriptorForDeviceArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, readDescriptorForDeviceResult)
+        this.callbackErrorOrTransfer(args.callbackId, readDescriptorForDeviceResult)
     }
 
     private async writeDescriptor(args: MethodCallArguments) {
@@ -636,7 +996,7 @@ export class Bridge {
             writeDescriptorArgs.arguments.value,
             writeDescriptorArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, writeDescriptorResult)
+        this.callbackErrorOrTransfer(args.callbackId, writeDescriptorResult)
     }
 
     private async writeDescriptorForCharacteristic(args: MethodCallArguments) {
@@ -654,7 +1014,7 @@ export class Bridge {
             writeDescriptorForCharacteristicArgs.arguments.value,
             writeDescriptorForCharacteristicArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, writeDescriptorForCharacteristicResult)
+        this.callbackErrorOrTransfer(args.callbackId, writeDescriptorForCharacteristicResult)
     }
 
     private async writeDescriptorForService(args: MethodCallArguments) {
@@ -674,7 +1034,7 @@ export class Bridge {
             writeDescriptorForServiceArgs.arguments.value,
             writeDescriptorForServiceArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, writeDescriptorForServiceResult)
+        this.callbackErrorOrTransfer(args.callbackId, writeDescriptorForServiceResult)
     }
 
     private async writeDescriptorForDevice(args: MethodCallArguments) {
@@ -696,7 +1056,7 @@ export class Bridge {
             writeDescriptorForDeviceArgs.arguments.value,
             writeDescriptorForDeviceArgs.arguments.transactionId
         )
-        this.callbackErrorOrValue(args.callbackId, writeDescriptorForDeviceResult)
+        this.callbackErrorOrTransfer(args.callbackId, writeDescriptorForDeviceResult)
     }
 
     private cancelTransaction(args: MethodCallArguments) {
@@ -707,14 +1067,22 @@ export class Bridge {
         }
 
         this.manager.cancelTransaction(cancelArgs.arguments.transactionId)
-        blemulatorModule.handleReturnCall(args.callbackId, {})
+        this.returnCall(args.callbackId, {})
+    }
+
+    private callbackErrorOrValue(callbackId: number, result: SimulatedBleError | any) {
+        if (result instanceof SimulatedBleError) {
+            this.returnCall(callbackId, { error: result })
+        } else {
+            this.returnCall(callbackId, { value: result })
+        }
     }
 
-    private callbackErrorOrValue(callbackId: string, result: SimulatedBleError | any) {
+    private callbackErrorOrTransfer(callbackId: number, result: SimulatedBleError | TransferCharacteristic | TransferDescriptor) {
         if (result instanceof SimulatedBleError) {
-            blemulatorModule.handleReturnCall(callbackId, { error: result })
+            this.returnCall(callbackId, { error: result })
         } else {
-            blemulatorModule.handleReturnCall(callbackId, { value: result })
+            this.returnCall(callbackId, { value: this.encodeTransfer(result) })
         }
     }
 
@@ -740,7 +1108,8 @@ export class Bridge {
                     break
             }
 
-            blemulatorModule.publishConnectionState(peripheralId, stateString)
+            this.flushPendingTransfers()
+            this.eventSink.publishConnectionState(peripheralId, stateString)
         })
     }
 }
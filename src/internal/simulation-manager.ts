@@ -28,6 +28,7 @@ export class SimulationManager {
     private characteristicsDelegate: CharacteristicsDelegate = new CharacteristicsDelegate(() => this.getAdapterState(), this.transactionMonitor)
     private descriptorsDelegate: DescriptorsDelegate = new DescriptorsDelegate(() => this.getAdapterState(), this.transactionMonitor)
     private mtuDelegate: MtuDelegate = new MtuDelegate(() => this.getAdapterState(), this.transactionMonitor)
+    private serviceChangedPublisher: (peripheralId: string, startHandle: number, endHandle: number) => void = () => { }
 
     clearState() {
         this.peripherals.forEach((peripheral) => peripheral.onDisconnect())
@@ -48,6 +49,10 @@ export class SimulationManager {
         this.characteristicsDelegate.setNotificationPublisher(publisher)
     }
 
+    setServiceChangedPublisher(publisher: (peripheralId: string, startHandle: number, endHandle: number) => void) {
+        this.serviceChangedPublisher = publisher
+    }
+
     setAdapterState(adapterState: AdapterState) {
         this.adapterStateDelegate.setAdapterState(adapterState)
     }
@@ -75,6 +80,9 @@ export class SimulationManager {
         this.peripherals.push(peripheral)
         this.peripheralsById.set(peripheral.id, peripheral)
         this.scanDelegate.addPeripheral(peripheral)
+        peripheral.listenToServiceChanges((startHandle, endHandle) => {
+            this.serviceChangedPublisher(peripheral.id, startHandle, endHandle)
+        })
     }
 
     startScan(filteredUuids: Array<UUID> | undefined, scanMode: number | undefined,
@@ -188,6 +196,22 @@ export class SimulationManager {
         )
     }
 
+    getDatabaseHash(peripheralIdentifier: string): string | undefined {
+        return this.peripheralsById.get(peripheralIdentifier)?.getDatabaseHash()
+    }
+
+    discoverGattsInRange(peripheralIdentifier: string, startHandle: number, endHandle: number): SimulatedBleError | Array<SimulatedService> {
+        try {
+            errorIfBluetoothNotSupported(this.adapterStateDelegate.getAdapterState())
+            errorIfBluetoothNotOn(this.adapterStateDelegate.getAdapterState())
+            errorIfUnknown(this.peripheralsById, peripheralIdentifier)
+            errorIfNotConnected(this.peripheralsById, peripheralIdentifier)
+            return this.peripheralsById.get(peripheralIdentifier)!.getServicesInHandleRange(startHandle, endHandle)
+        } catch (error) {
+            return mapErrorToSimulatedBleError(error)
+        }
+    }
+
     async readCharacteristic(characteristicId: number, transactionId: string): Promise<TransferCharacteristic | SimulatedBleError> {
         this.characteristicsDelegate.onNewTransaction(transactionId)
         return this.characteristicsDelegate.readCharacteristic(
@@ -0,0 +1,102 @@
+import { Base64, UUID } from "../types";
+
+// Every value tells native how it is encoded: number arrays are raw bytes, strings starting with
+// HEX_PREFIX are hex and any other string is Base64, so switching encodings never races with
+// values already sent
+export type ValueEncoding = "base64" | "hex" | "byteArray"
+export type EncodedValue = Base64 | string | Array<number>
+
+const BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+const BASE64_PADDING = "="
+const HEX_PREFIX = "#"
+const HEX_DIGITS = "0123456789abcdef"
+const MAX_CACHED_VALUES = 256
+
+const base64Lookup: Array<number> = []
+for (let i = 0; i < BASE64_ALPHABET.length; i++) {
+    base64Lookup[BASE64_ALPHABET.charCodeAt(i)] = i
+}
+const hexBytes: Array<string> = []
+for (let i = 0; i < 256; i++) {
+    hexBytes.push(HEX_DIGITS[i >> 4] + HEX_DIGITS[i & 0x0f])
+}
+
+export class ValueCodec {
+    private encoding: ValueEncoding = "base64"
+    private cachedValues: Map<Base64, EncodedValue> = new Map()
+
+    getEncoding(): ValueEncoding {
+        return this.encoding
+    }
+
+    setEncoding(encoding: ValueEncoding) {
+        this.encoding = encoding
+        this.cachedValues.clear()
+    }
+
+    encode(value: Base64): EncodedValue
+    encode(value: Base64 | null | undefined): EncodedValue | null | undefined
+    encode(value: Base64 | null | undefined): EncodedValue | null | undefined {
+        if (value === null || value === undefined || this.encoding === "base64") {
+            return value
+        }
+        const cachedValue = this.cachedValues.get(value)
+        if (cachedValue !== undefined) {
+            return cachedValue
+        }
+        const bytes = decodeBase64(value)
+        const encodedValue = this.encoding === "hex" ? toHex(bytes) : bytes
+        if (this.cachedValues.size >= MAX_CACHED_VALUES) {
+            this.cachedValues.delete(this.cachedValues.keys().next().value)
+        }
+        this.cachedValues.set(value, encodedValue)
+        return encodedValue
+    }
+
+    encodeServiceData(
+        serviceData: Map<UUID, Base64> | { [uuid: string]: Base64 } | undefined
+    ): Map<UUID, Base64> | { [uuid: string]: EncodedValue } | undefined {
+        if (serviceData === undefined || this.encoding === "base64") {
+            return serviceData
+        }
+        const entries: Array<[UUID, Base64]> = serviceData instanceof Map
+            ? Array.from(serviceData.entries())
+            : Object.entries(serviceData)
+        const encodedServiceData: { [uuid: string]: EncodedValue } = {}
+        entries.forEach(([uuid, value]) => {
+            encodedServiceData[uuid] = this.encode(value)
+        })
+        return encodedServiceData
+    }
+}
+
+function decodeBase64(value: Base64): Array<number> {
+    let length = value.length
+    while (length > 0 && value[length - 1] === BASE64_PADDING) {
+        length--
+    }
+    const bytes: Array<number> = []
+    let buffer = 0
+    let bufferedBits = 0
+    for (let i = 0; i < length; i++) {
+        const sextet = base64Lookup[value.charCodeAt(i)]
+        if (sextet === undefined) {
+            throw new Error(`Value is in incorrect format, "${value[i]}" is not a Base64 character`)
+        }
+        buffer = ((buffer << 6) | sextet) & 0xffff
+        bufferedBits += 6
+        if (bufferedBits >= 8) {
+            bufferedBits -= 8
+            bytes.push((buffer >> bufferedBits) & 0xff)
+        }
+    }
+    return bytes
+}
+
+function toHex(bytes: Array<number>): string {
+    let hex = HEX_PREFIX
+    for (let i = 0; i < bytes.length; i++) {
+        hex += hexBytes[bytes[i]]
+    }
+    return hex
+}
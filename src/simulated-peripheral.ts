@@ -21,6 +21,8 @@ export interface ScanInfo {
     overflowUuids?: Array<UUID>
 }
 
+export type ServiceChangedListener = (startHandle: number, endHandle: number) => void
+
 export class SimulatedPeripheral {
     readonly name: string | null
     readonly id: string
@@ -34,7 +36,9 @@ export class SimulatedPeripheral {
     private _isConnected: boolean = false
     private _isDiscoveryDone: boolean = false
     private connectionStateListeners: Map<number, ConnectionStateListener> = new Map()
+    private serviceChangedListeners: Map<number, ServiceChangedListener> = new Map()
     private _isMtuNegotiated: boolean = false
+    private databaseHash: string | null = null
 
     constructor({
         name, id, advertisementInterval, services, rssi = -30, txPowerLevel, isConnectable = true,
@@ -48,20 +52,56 @@ export class SimulatedPeripheral {
         this.advertisementInterval = advertisementInterval
 
         services.forEach((service) => {
-            this.servicesById.set(service.id, service)
-            this.servicesByUuid.set(service.uuid, service)
+            this.registerService(service)
+
+            if (service.isAdvertised) {
+                this.scanInfo.serviceUuids.push(service.uuid)
+            }
+        })
+    }
+
+    addService(service: SimulatedService): void {
+        this.registerService(service)
+        this.indicateServiceChanged(service)
+    }
+
+    removeService(serviceId: number): void {
+        const service = this.servicesById.get(serviceId)
+        if (!service) {
+            return
+        }
 
-            service.getCharacteristics().forEach((characteristic) => {
-                this.characteristicsById.set(characteristic.id, characteristic)
+        this.servicesById.delete(service.id)
+        if (this.servicesByUuid.get(service.uuid) === service) {
+            this.servicesByUuid.delete(service.uuid)
+        }
+        service.getCharacteristics().forEach((characteristic) => {
+            this.characteristicsById.delete(characteristic.id)
 
-                characteristic.getDescriptors().forEach((descriptor) => {
-                    this.descriptorsById.set(descriptor.id, descriptor)
-                })
+            characteristic.getDescriptors().forEach((descriptor) => {
+                this.descriptorsById.delete(descriptor.id)
             })
+        })
+        this.databaseHash = null
+        this.indicateServiceChanged(service)
+    }
 
-            if (service.isAdvertised) {
-                this.scanInfo.serviceUuids.push(service.uuid)
+    listenToServiceChanges(listener: ServiceChangedListener): Subscription {
+        let id = IdGenerator.nextId()
+        this.serviceChangedListeners.set(id, listener)
+
+        const that = this
+        return {
+            dispose() {
+                that.serviceChangedListeners.delete(id)
             }
+        }
+    }
+
+    getServicesInHandleRange(startHandle: number, endHandle: number): Array<SimulatedService> {
+        return Array.from(this.servicesById.values()).filter((service) => {
+            const [firstHandle, lastHandle] = getHandleRange(service)
+            return firstHandle <= endHandle && lastHandle >= startHandle
         })
     }
 
@@ -144,6 +184,13 @@ export class SimulatedPeripheral {
         return Array.from(this.servicesByUuid.values())
     }
 
+    getDatabaseHash(): string {
+        if (this.databaseHash === null) {
+            this.databaseHash = computeDatabaseHash(this.getServices())
+        }
+        return this.databaseHash
+    }
+
     isMtuNegotiated(): boolean {
         return this._isMtuNegotiated
     }
@@ -205,8 +252,66 @@ export class SimulatedPeripheral {
         return characteristic.getDescriptorByUuid(descriptorUuid.toUpperCase())
     }
 
+    private registerService(service: SimulatedService): void {
+        this.databaseHash = null
+        this.servicesById.set(service.id, service)
+        this.servicesByUuid.set(service.uuid, service)
+
+        service.getCharacteristics().forEach((characteristic) => {
+            this.characteristicsById.set(characteristic.id, characteristic)
+
+            characteristic.getDescriptors().forEach((descriptor) => {
+                this.descriptorsById.set(descriptor.id, descriptor)
+            })
+        })
+    }
+
+    private indicateServiceChanged(service: SimulatedService): void {
+        if (!this._isConnected || !this._isDiscoveryDone) {
+            return
+        }
+        const [startHandle, endHandle] = getHandleRange(service)
+        this.serviceChangedListeners.forEach((listener) => listener(startHandle, endHandle))
+    }
+
     private onConnectionStateChanged(newConnectionState: ConnectionState): void {
         console.log(`P:id "${this.id}"; state: ${newConnectionState}`) //TODO should this somehow be exposed to user? Maybe switched on or off somehow?
         this.connectionStateListeners.forEach((listener) => listener(newConnectionState))
     }
-}
\ No newline at end of file
+}
+
+function getHandleRange(service: SimulatedService): [number, number] {
+    let firstHandle = service.id
+    let lastHandle = service.id
+    service.getCharacteristics().forEach((characteristic) => {
+        firstHandle = Math.min(firstHandle, characteristic.id)
+        lastHandle = Math.max(lastHandle, characteristic.id)
+        characteristic.getDescriptors().forEach((descriptor) => {
+            firstHandle = Math.min(firstHandle, descriptor.id)
+            lastHandle = Math.max(lastHandle, descriptor.id)
+        })
+    })
+    return [firstHandle, lastHandle]
+}
+
+function computeDatabaseHash(services: Array<SimulatedService>): string {
+    let hash = 0x811c9dc5
+    const append = (value: string) => {
+        for (let i = 0; i < value.length; i++) {
+            hash ^= value.charCodeAt(i)
+            hash = Math.imul(hash, 0x01000193)
+        }
+    }
+    services.forEach((service) => {
+        append(`S${service.id}:${service.uuid}`)
+        service.getCharacteristics().forEach((characteristic) => {
+            append(`C${characteristic.id}:${characteristic.uuid}:${characteristic.isReadable}:`
+                + `${characteristic.isWritableWithResponse}:${characteristic.isWritableWithoutResponse}:`
+                + `${characteristic.isNotifiable}:${characteristic.isIndicatable}`)
+            characteristic.getDescriptors().forEach((descriptor) => {
+                append(`D${descriptor.id}:${descriptor.uuid}`)
+            })
+        })
+    })
+    return (hash >>> 0).toString(16)
+}